@@ -3,6 +3,7 @@ plugins {
     id("org.openjfx.javafxplugin") version "0.1.0"
     id("org.beryx.jlink") version "3.0.1"
     id("org.javamodularity.moduleplugin") version "1.8.15"
+    id("me.champeau.jmh") version "0.7.2" apply false
 }
 
 group = "miroshka"
@@ -15,6 +16,7 @@ repositories {
 application {
     mainModule.set("RaschModelCalculator")
     mainClass.set("miroshka.rasch.Main")
+    applicationDefaultJvmArgs = listOf("--add-modules=jdk.incubator.vector")
 }
 
 javafx {
@@ -28,6 +30,37 @@ dependencies {
     implementation("io.github.mkpaz:atlantafx-base:2.0.1")
     implementation("com.zaxxer:SparseBitSet:1.3")
     implementation("org.apache.commons:commons-math3:3.6.1")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+    jvmArgs("--add-modules=jdk.incubator.vector")
+}
+
+if (project.hasProperty("benchmarks")) {
+    apply(plugin = "me.champeau.jmh")
+
+    configure<me.champeau.jmh.JmhParameters> {
+        val quick = project.hasProperty("jmhQuick")
+        jmhVersion.set("1.37")
+        fork.set(1)
+        warmupIterations.set(if (quick) 1 else 3)
+        iterations.set(if (quick) 2 else 5)
+        warmup.set(if (quick) "2s" else "10s")
+        timeOnIteration.set(if (quick) "2s" else "10s")
+        benchmarkMode.set(listOf("thrpt"))
+        timeUnit.set("s")
+        profilers.set(listOf("gc"))
+        jvmArgsAppend.set(listOf("-Xms1g", "-Xmx2g", "--add-modules=jdk.incubator.vector"))
+        resultFormat.set("JSON")
+        resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+        humanOutputFile.set(layout.buildDirectory.file("reports/jmh/results.txt"))
+        project.findProperty("jmhInclude")?.let { includes.set(listOf(it.toString())) }
+    }
 }
 
 tasks.withType<Jar> {
@@ -46,10 +79,11 @@ tasks.withType<Jar> {
 }
 
 jlink {
-    options = listOf("--strip-debug", "--compress", "2", "--no-header-files", "--no-man-pages")
+    options = listOf("--strip-debug", "--compress", "2", "--no-header-files", "--no-man-pages",
+        "--add-modules", "jdk.incubator.vector")
     launcher {
         name = "RaschCalculator"
-        jvmArgs = listOf("-Xms256m", "-Xmx1024m")
+        jvmArgs = listOf("-Xms256m", "-Xmx1024m", "--add-modules=jdk.incubator.vector")
     }
     forceMerge("log4j")
 
@@ -80,6 +114,9 @@ jlink {
 
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
+}
+
+tasks.named<JavaCompile>("compileJava") {
     options.compilerArgs.addAll(listOf("--module-path", classpath.asPath))
 }
 
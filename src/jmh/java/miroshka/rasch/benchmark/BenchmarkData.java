@@ -0,0 +1,44 @@
+package miroshka.rasch.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import miroshka.rasch.logic.ResponseMatrix;
+import miroshka.rasch.logic.SyntheticDataGenerator;
+
+final class BenchmarkData {
+    static final long SEED = 20250704L;
+
+    private BenchmarkData() {
+    }
+
+    static SyntheticDataGenerator generator(int persons, int items, double sparsity) {
+        SyntheticDataGenerator.Builder builder = SyntheticDataGenerator.builder(persons, items).withSeed(SEED);
+        if (sparsity > 0) {
+            builder.withMissingRate(sparsity);
+        }
+        return builder.build();
+    }
+
+    static ResponseMatrix generateMatrix(int persons, int items, double sparsity) {
+        return generator(persons, items, sparsity).generateMatrix();
+    }
+
+    static File writeCsv(int persons, int items, double sparsity) throws IOException {
+        File file = createTempFile(".csv");
+        generator(persons, items, sparsity).writeCsv(file);
+        return file;
+    }
+
+    static File writeXlsx(int persons, int items, double sparsity) throws IOException {
+        File file = createTempFile(".xlsx");
+        generator(persons, items, sparsity).writeXlsx(file);
+        return file;
+    }
+
+    static File createTempFile(String suffix) throws IOException {
+        File file = File.createTempFile("rasch-bench-", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,69 @@
+package miroshka.rasch.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import miroshka.rasch.logic.DataReader;
+import miroshka.rasch.logic.ReaderSettings;
+import miroshka.rasch.logic.ResponseMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class DataReaderBenchmark {
+
+    public enum CsvReader {
+        BUFFERED, MAPPED, MAPPED_PARALLEL;
+
+        ReaderSettings settings() {
+            ReaderSettings.Builder builder = ReaderSettings.builder().withMappedCsv(this != BUFFERED);
+            if (this == MAPPED_PARALLEL) {
+                builder.withAllProcessors();
+            }
+            return builder.build();
+        }
+    }
+
+    @Param({"20000", "200000"})
+    public int persons;
+
+    @Param({"200"})
+    public int items;
+
+    @Param({"0.0", "0.3"})
+    public double sparsity;
+
+    @Param({"BUFFERED", "MAPPED", "MAPPED_PARALLEL"})
+    public CsvReader csvReader;
+
+    private DataReader reader;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        reader = new DataReader(csvReader.settings());
+        file = BenchmarkData.writeCsv(persons, items, sparsity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public ResponseMatrix readData() throws IOException {
+        return reader.readData(file);
+    }
+}
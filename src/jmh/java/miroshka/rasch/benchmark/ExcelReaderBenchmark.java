@@ -0,0 +1,57 @@
+package miroshka.rasch.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import miroshka.rasch.logic.DataReader;
+import miroshka.rasch.logic.ReaderSettings;
+import miroshka.rasch.logic.ResponseMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class ExcelReaderBenchmark {
+
+    @Param({"1000", "5000"})
+    public int persons;
+
+    @Param({"50"})
+    public int items;
+
+    @Param({"0.0", "0.3"})
+    public double sparsity;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private DataReader reader;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        reader = new DataReader(ReaderSettings.builder().withStreamingExcel(streaming).build());
+        file = BenchmarkData.writeXlsx(persons, items, sparsity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public ResponseMatrix readData() throws IOException {
+        return reader.readData(file);
+    }
+}
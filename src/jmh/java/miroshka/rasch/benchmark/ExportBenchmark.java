@@ -0,0 +1,53 @@
+package miroshka.rasch.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import miroshka.rasch.logic.RaschModel;
+import miroshka.rasch.model.ExportFormat;
+import miroshka.rasch.utils.ExportManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class ExportBenchmark {
+
+    @Param({"CSV", "EXCEL", "WORD"})
+    public ExportFormat format;
+
+    @Param({"1000", "20000"})
+    public int persons;
+
+    @Param({"50", "200"})
+    public int items;
+
+    private RaschModel.RaschResult result;
+    private File outputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        result = new RaschModel().calculate(BenchmarkData.generateMatrix(persons, items, 0.0));
+        outputFile = BenchmarkData.createTempFile("." + format.getFileExtension());
+    }
+
+    @TearDown
+    public void tearDown() {
+        outputFile.delete();
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        ExportManager.exportCompleteResults(result, outputFile, format);
+        return outputFile.length();
+    }
+}
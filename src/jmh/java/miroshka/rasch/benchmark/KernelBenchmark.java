@@ -0,0 +1,71 @@
+package miroshka.rasch.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import miroshka.rasch.logic.EstimationSettings;
+import miroshka.rasch.logic.RaschModel;
+import miroshka.rasch.logic.ResponseMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class KernelBenchmark {
+
+    public enum RowKernel {
+        SCALAR_EXACT(EstimationSettings.Kernel.SCALAR, EstimationSettings.Logistic.EXACT),
+        SCALAR_TABULATED(EstimationSettings.Kernel.SCALAR, EstimationSettings.Logistic.TABULATED),
+        VECTOR_EXACT(EstimationSettings.Kernel.VECTOR, EstimationSettings.Logistic.EXACT);
+
+        final EstimationSettings.Kernel kernel;
+        final EstimationSettings.Logistic logistic;
+
+        RowKernel(EstimationSettings.Kernel kernel, EstimationSettings.Logistic logistic) {
+            this.kernel = kernel;
+            this.logistic = logistic;
+        }
+    }
+
+    @Param({"10000"})
+    public int persons;
+
+    @Param({"50", "200"})
+    public int items;
+
+    @Param({"SCALAR_EXACT", "SCALAR_TABULATED", "VECTOR_EXACT"})
+    public RowKernel rowKernel;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private ResponseMatrix data;
+    private RaschModel model;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.generateMatrix(persons, items, 0.0);
+        EstimationSettings.Builder settings = EstimationSettings.builder()
+            .withMethod(EstimationSettings.Method.JMLE)
+            .withSolver(EstimationSettings.Solver.DAMPED)
+            .withKernel(rowKernel.kernel)
+            .withLogistic(rowKernel.logistic);
+        if (parallelism > 0) {
+            settings.withParallelism(parallelism);
+        } else {
+            settings.withAllProcessors();
+        }
+        model = new RaschModel(settings.build());
+    }
+
+    @Benchmark
+    public RaschModel.RaschResult calculate() {
+        return model.calculate(data);
+    }
+}
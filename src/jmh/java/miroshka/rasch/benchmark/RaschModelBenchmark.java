@@ -0,0 +1,53 @@
+package miroshka.rasch.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import miroshka.rasch.logic.EstimationSettings;
+import miroshka.rasch.logic.RaschModel;
+import miroshka.rasch.logic.ResponseMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class RaschModelBenchmark {
+
+    @Param({"1000", "10000"})
+    public int persons;
+
+    @Param({"50"})
+    public int items;
+
+    @Param({"INDIVIDUAL", "SCORE_GROUPS"})
+    public EstimationSettings.PersonEstimation personEstimation;
+
+    @Param({"JMLE", "CML", "MML"})
+    public EstimationSettings.Method method;
+
+    private ResponseMatrix data;
+    private RaschModel model;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.generateMatrix(persons, items, 0.0);
+        model = new RaschModel(EstimationSettings.builder()
+            .withPersonEstimation(personEstimation)
+            .withMethod(method)
+            .withSolver(EstimationSettings.Solver.NEWTON)
+            .withStartValues(EstimationSettings.StartValues.PROX)
+            .withAllProcessors()
+            .build());
+    }
+
+    @Benchmark
+    public RaschModel.RaschResult calculate() {
+        return model.calculate(data);
+    }
+}
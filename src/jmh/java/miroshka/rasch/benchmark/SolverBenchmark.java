@@ -0,0 +1,55 @@
+package miroshka.rasch.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import miroshka.rasch.logic.EstimationSettings;
+import miroshka.rasch.logic.RaschModel;
+import miroshka.rasch.logic.ResponseMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class SolverBenchmark {
+
+    @Param({"10000"})
+    public int persons;
+
+    @Param({"50"})
+    public int items;
+
+    @Param({"0.0", "0.3"})
+    public double sparsity;
+
+    @Param({"DAMPED", "NEWTON"})
+    public EstimationSettings.Solver solver;
+
+    @Param({"ZERO", "PROX"})
+    public EstimationSettings.StartValues startValues;
+
+    private ResponseMatrix data;
+    private RaschModel model;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.generateMatrix(persons, items, sparsity);
+        model = new RaschModel(EstimationSettings.builder()
+            .withMethod(EstimationSettings.Method.JMLE)
+            .withSolver(solver)
+            .withStartValues(startValues)
+            .withAllProcessors()
+            .build());
+    }
+
+    @Benchmark
+    public RaschModel.RaschResult calculate() {
+        return model.calculate(data);
+    }
+}
@@ -37,6 +37,8 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 import miroshka.rasch.logic.RaschModel;
 import miroshka.rasch.logic.RaschModelProcessor;
+import miroshka.rasch.logic.ResponseMatrix;
+import miroshka.rasch.logic.ScoreTable;
 import miroshka.rasch.model.Item;
 import miroshka.rasch.model.Person;
 import miroshka.rasch.utils.AnimationManager;
@@ -116,6 +118,7 @@ public class MainController {
     private final DecimalFormat df;
     private final VersionManager versionManager;
     private final UpdateManager updateManager;
+    private ScoreTable scoreTable;
     
     public MainController() {
         this.processor = new RaschModelProcessor();
@@ -393,7 +396,8 @@ public class MainController {
         double[] iInfitZSTD = itemDifficultyTable.getItems().stream().mapToDouble(Item::getInfitZSTD).toArray();
         double[] iOutfitZSTD = itemDifficultyTable.getItems().stream().mapToDouble(Item::getOutfitZSTD).toArray();
 
-        return new RaschModel.RaschResult(personAbilities, itemDifficulties, pInfitMNSQ, pOutfitMNSQ, pInfitZSTD, pOutfitZSTD, iInfitMNSQ, iOutfitMNSQ, iInfitZSTD, iOutfitZSTD);
+        return new RaschModel.RaschResult(personAbilities, itemDifficulties, pInfitMNSQ, pOutfitMNSQ, pInfitZSTD, pOutfitZSTD, iInfitMNSQ, iOutfitMNSQ, iInfitZSTD, iOutfitZSTD,
+                RaschModel.Convergence.notAvailable(), RaschModel.Population.notAvailable(), scoreTable);
     }
 
     @FXML
@@ -418,8 +422,8 @@ public class MainController {
             
             new Thread(() -> {
                 try {
-                    double[][] data = processor.readDataFromFile(selectedFile);
-                    if(data.length > 0 && data[0].length > 0) {
+                    ResponseMatrix data = processor.readDataFromFile(selectedFile);
+                    if(!data.isEmpty()) {
                         Platform.runLater(() -> updateStatus("Выполняется анализ данных...", StatusType.LOADING));
                         
                         RaschModel.RaschResult result = processor.calculateRaschModel(data);
@@ -534,6 +538,7 @@ public class MainController {
             return;
         }
 
+        scoreTable = result.getScoreTable();
         ObservableList<Person> personData = createPersonsList(result);
         animateTableUpdate(personAbilityTable, () -> personAbilityTable.setItems(personData));
 
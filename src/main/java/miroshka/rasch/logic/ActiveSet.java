@@ -0,0 +1,172 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class ActiveSet {
+    static final double EXTREME_ADJUSTMENT = 0.3;
+
+    final boolean[] units;
+    final boolean[] items;
+    final int[] unitScores;
+    final int[] itemScores;
+    final ObservedCells cells;
+    int numUnits;
+    int numItems;
+
+    private ActiveSet(int[] scores, int[] itemScores, ObservedCells cells) {
+        this.units = new boolean[scores.length];
+        this.items = new boolean[itemScores.length];
+        this.unitScores = scores.clone();
+        this.itemScores = itemScores.clone();
+        this.cells = cells;
+        Arrays.fill(units, true);
+        Arrays.fill(items, true);
+        this.numUnits = scores.length;
+        this.numItems = itemScores.length;
+    }
+
+    static ActiveSet prune(int[] scores, int[] weights, int[] itemScores) {
+        return prune(scores, weights, itemScores, null);
+    }
+
+    static ActiveSet prune(int[] scores, int[] weights, int[] itemScores, ObservedCells cells) {
+        ActiveSet set = new ActiveSet(scores, itemScores, cells);
+        int[] unitMaxima = new int[scores.length];
+        double[] itemMaxima = cells != null ? cells.itemWeights(weights) : new double[itemScores.length];
+        long activeWeight = 0;
+        for (int u = 0; u < scores.length; u++) {
+            activeWeight += weights != null ? weights[u] : 1;
+            unitMaxima[u] = cells != null ? cells.count(u) : itemScores.length;
+        }
+        if (cells == null) {
+            Arrays.fill(itemMaxima, activeWeight);
+        }
+
+        int[] unitBuffer = cells != null ? new int[scores.length] : null;
+        int[] itemBuffer = cells != null ? new int[itemScores.length] : null;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < set.items.length; i++) {
+                if (!set.items[i]) continue;
+                boolean allCorrect = set.itemScores[i] == itemMaxima[i];
+                if (set.itemScores[i] == 0 || allCorrect) {
+                    set.items[i] = false;
+                    set.numItems--;
+                    changed = true;
+                    int count = cells != null ? cells.unitsOf(i, unitBuffer) : set.units.length;
+                    for (int k = 0; k < count; k++) {
+                        int u = cells != null ? unitBuffer[k] : k;
+                        if (set.units[u]) {
+                            unitMaxima[u]--;
+                            if (allCorrect) set.unitScores[u]--;
+                        }
+                    }
+                }
+            }
+            for (int u = 0; u < set.units.length; u++) {
+                if (!set.units[u]) continue;
+                boolean allCorrect = set.unitScores[u] == unitMaxima[u];
+                if (set.unitScores[u] == 0 || allCorrect) {
+                    int weight = weights != null ? weights[u] : 1;
+                    set.units[u] = false;
+                    set.numUnits--;
+                    changed = true;
+                    int count = cells != null ? cells.itemsOf(u, itemBuffer) : set.items.length;
+                    for (int k = 0; k < count; k++) {
+                        int i = cells != null ? itemBuffer[k] : k;
+                        if (set.items[i]) {
+                            itemMaxima[i] -= weight;
+                            if (allCorrect) set.itemScores[i] -= weight;
+                        }
+                    }
+                }
+            }
+        }
+        return set;
+    }
+
+    void completeExtremes(double[] abilities, int[] scores, int[] weights, double[] difficulties,
+                          double[] referenceAbilities, int[] referenceWeights) {
+        int numItems = difficulties.length;
+        double referenceWeight = 0;
+        for (int weight : referenceWeights) {
+            referenceWeight += weight;
+        }
+        int[] unitBuffer = null;
+        for (int i = 0; i < numItems; i++) {
+            if (items[i]) continue;
+            if (cells == null) {
+                double target = itemScores[i] > 0 ? referenceWeight - EXTREME_ADJUSTMENT : EXTREME_ADJUSTMENT;
+                difficulties[i] = ProbabilityKernel.difficultyForScore(target, referenceAbilities, referenceWeights);
+                continue;
+            }
+            if (unitBuffer == null) {
+                unitBuffer = new int[units.length];
+            }
+            double[] observedAbilities = new double[numUnits];
+            int[] observedWeights = new int[numUnits];
+            int count = 0;
+            double observedWeight = 0;
+            int observedUnits = cells.unitsOf(i, unitBuffer);
+            for (int k = 0; k < observedUnits; k++) {
+                int u = unitBuffer[k];
+                if (units[u]) {
+                    observedAbilities[count] = abilities[u];
+                    observedWeights[count] = weights != null ? weights[u] : 1;
+                    observedWeight += observedWeights[count++];
+                }
+            }
+            if (count == 0) {
+                difficulties[i] = Double.NaN;
+                continue;
+            }
+            double target = itemScores[i] > 0 ? observedWeight - EXTREME_ADJUSTMENT : EXTREME_ADJUSTMENT;
+            difficulties[i] = ProbabilityKernel.difficultyForScore(target,
+                Arrays.copyOf(observedAbilities, count), Arrays.copyOf(observedWeights, count));
+        }
+        double[] observedDifficulties = cells != null ? new double[numItems] : difficulties;
+        int[] itemBuffer = cells != null ? new int[numItems] : null;
+        for (int u = 0; u < units.length; u++) {
+            if (units[u]) continue;
+            int maximum = numItems;
+            if (cells != null) {
+                maximum = 0;
+                int observedItems = cells.itemsOf(u, itemBuffer);
+                for (int k = 0; k < observedItems; k++) {
+                    if (!Double.isNaN(difficulties[itemBuffer[k]])) {
+                        observedDifficulties[maximum++] = difficulties[itemBuffer[k]];
+                    }
+                }
+            }
+            if (maximum == 0) {
+                abilities[u] = Double.NaN;
+                continue;
+            }
+            double target = Math.max(EXTREME_ADJUSTMENT, Math.min(scores[u], maximum - EXTREME_ADJUSTMENT));
+            abilities[u] = ProbabilityKernel.abilityForScore(target, maximum == observedDifficulties.length
+                ? observedDifficulties
+                : Arrays.copyOf(observedDifficulties, maximum));
+        }
+        center(abilities, difficulties);
+    }
+
+    static void center(double[] abilities, double[] difficulties) {
+        double mean = 0;
+        int count = 0;
+        for (double difficulty : difficulties) {
+            if (!Double.isNaN(difficulty)) {
+                mean += difficulty;
+                count++;
+            }
+        }
+        mean /= count;
+        for (int i = 0; i < difficulties.length; i++) {
+            difficulties[i] -= mean;
+        }
+        for (int u = 0; u < abilities.length; u++) {
+            abilities[u] -= mean;
+        }
+    }
+}
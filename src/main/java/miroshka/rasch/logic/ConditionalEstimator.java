@@ -0,0 +1,328 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class ConditionalEstimator {
+    private static final double MAX_STEP = 4.0;
+    private static final double ARMIJO_FACTOR = 1e-4;
+    private static final int MAX_HALVINGS = 12;
+
+    private final int maxIterations;
+    private final double parameterTolerance;
+    private final double residualTolerance;
+
+    ConditionalEstimator(EstimationSettings settings) {
+        this.maxIterations = settings.getMaxIterations();
+        this.parameterTolerance = settings.getParameterTolerance();
+        this.residualTolerance = settings.getResidualTolerance();
+    }
+
+    RaschModel.Convergence estimate(double[] abilities, int[] scores, int[] weights,
+                                    double[] difficulties, int[] itemScores) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+
+        ActiveSet active = ActiveSet.prune(scores, weights, itemScores);
+        if (active.numItems < 2 || active.numUnits == 0) {
+            return null;
+        }
+
+        int size = active.numItems;
+        int[] scoreCounts = new int[size + 1];
+        for (int u = 0; u < numUnits; u++) {
+            if (active.units[u]) {
+                scoreCounts[active.unitScores[u]] += weights != null ? weights[u] : 1;
+            }
+        }
+        double[] itemDifficulties = new double[size];
+        int[] activeItemScores = new int[size];
+        for (int k = 0, i = 0; i < numItems; i++) {
+            if (active.items[i]) {
+                itemDifficulties[k] = difficulties[i];
+                activeItemScores[k] = active.itemScores[i];
+                k++;
+            }
+        }
+
+        RaschModel.Convergence convergence = iterate(itemDifficulties, activeItemScores, scoreCounts);
+
+        double[] abilityByScore = new double[size + 1];
+        for (int score = 1; score < size; score++) {
+            abilityByScore[score] = ProbabilityKernel.abilityForScore(score, itemDifficulties);
+        }
+        for (int u = 0; u < numUnits; u++) {
+            if (active.units[u]) {
+                abilities[u] = abilityByScore[active.unitScores[u]];
+            }
+        }
+        for (int k = 0, i = 0; i < numItems; i++) {
+            if (active.items[i]) {
+                difficulties[i] = itemDifficulties[k++];
+            }
+        }
+        active.completeExtremes(abilities, scores, weights, difficulties, abilityByScore, scoreCounts);
+
+        return convergence;
+    }
+
+    private RaschModel.Convergence iterate(double[] difficulties, int[] itemScores, int[] scoreCounts) {
+        int size = difficulties.length;
+        SymmetricFunctions functions = new SymmetricFunctions(size);
+        SymmetricFunctions trialFunctions = new SymmetricFunctions(size);
+        double[] expected = new double[size];
+        double[] trialExpected = new double[size];
+        double[] information = new double[size];
+        double[] step = new double[size];
+        double[] trialDifficulties = new double[size];
+        double[] reduced = new double[(size - 1) * (size - 1)];
+        double[] residualHistory = new double[maxIterations + 1];
+
+        ActiveSet.center(new double[0], difficulties);
+        functions.update(difficulties);
+        double logLikelihood = functions.accumulate(difficulties, itemScores, scoreCounts, expected);
+        double maxChange = Double.POSITIVE_INFINITY;
+        double maxResidual;
+        RaschModel.Convergence.Status status = RaschModel.Convergence.Status.ITERATION_LIMIT;
+        int iteration = 0;
+
+        while (true) {
+            maxResidual = 0;
+            for (int i = 0; i < size; i++) {
+                maxResidual = Math.max(maxResidual, Math.abs(itemScores[i] - expected[i]));
+            }
+            residualHistory[iteration] = maxResidual;
+
+            if (maxChange < parameterTolerance && maxResidual < residualTolerance) {
+                status = RaschModel.Convergence.Status.CONVERGED;
+                break;
+            }
+            if (iteration == maxIterations) {
+                break;
+            }
+
+            double slope = computeStep(functions, scoreCounts, expected, itemScores, information, reduced, step);
+
+            double alpha = 1.0;
+            boolean accepted = false;
+            double trialLogLikelihood = 0;
+            for (int halving = 0; halving <= MAX_HALVINGS; halving++) {
+                for (int i = 0; i < size; i++) {
+                    trialDifficulties[i] = difficulties[i] + alpha * step[i];
+                }
+                ActiveSet.center(new double[0], trialDifficulties);
+                trialFunctions.update(trialDifficulties);
+                trialLogLikelihood = trialFunctions.accumulate(trialDifficulties, itemScores, scoreCounts, trialExpected);
+                if (trialLogLikelihood >= logLikelihood + ARMIJO_FACTOR * alpha * slope) {
+                    accepted = true;
+                    break;
+                }
+                alpha *= 0.5;
+            }
+            if (!accepted) {
+                if (iteration == 0) {
+                    maxChange = 0;
+                }
+                status = RaschModel.Convergence.Status.LINE_SEARCH_FAILED;
+                break;
+            }
+
+            maxChange = 0;
+            for (int i = 0; i < size; i++) {
+                maxChange = Math.max(maxChange, Math.abs(trialDifficulties[i] - difficulties[i]));
+            }
+            System.arraycopy(trialDifficulties, 0, difficulties, 0, size);
+            logLikelihood = trialLogLikelihood;
+            SymmetricFunctions swapFunctions = functions;
+            functions = trialFunctions;
+            trialFunctions = swapFunctions;
+            double[] swapExpected = expected;
+            expected = trialExpected;
+            trialExpected = swapExpected;
+            iteration++;
+        }
+
+        if (status == RaschModel.Convergence.Status.CONVERGED) {
+            System.out.println("CML converged after " + iteration + " iterations (max residual " + maxResidual + ").");
+        } else if (status == RaschModel.Convergence.Status.LINE_SEARCH_FAILED) {
+            System.out.println("CML stopped after " + iteration + " iterations: line search found no improving step (max residual " + maxResidual + ").");
+        } else {
+            System.out.println("CML stopped after " + iteration + " iterations (max residual " + maxResidual + ").");
+        }
+        return new RaschModel.Convergence(iteration, status, maxChange, maxResidual,
+            Arrays.copyOf(residualHistory, iteration + 1));
+    }
+
+    private static double computeStep(SymmetricFunctions functions, int[] scoreCounts, double[] expected,
+                                      int[] itemScores, double[] information, double[] reduced, double[] step) {
+        int size = expected.length;
+        int reducedSize = size - 1;
+
+        Arrays.fill(reduced, 0);
+        Arrays.fill(information, 0);
+        for (int score = 1; score < size; score++) {
+            int count = scoreCounts[score];
+            if (count == 0) continue;
+            int row = score * size;
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                double ratio = functions.ratios[row + i];
+                double variance = ratio * (1.0 - ratio);
+                information[i] += count * variance;
+                total += variance;
+            }
+            if (total <= ProbabilityKernel.MIN_INFORMATION) continue;
+            double coupling = count / total;
+            for (int i = 0; i < reducedSize; i++) {
+                double ratio = functions.ratios[row + i];
+                double scaled = coupling * ratio * (1.0 - ratio);
+                int offset = i * reducedSize;
+                for (int k = 0; k <= i; k++) {
+                    double other = functions.ratios[row + k];
+                    reduced[offset + k] -= scaled * other * (1.0 - other);
+                }
+            }
+        }
+        for (int i = 0; i < reducedSize; i++) {
+            reduced[i * reducedSize + i] += information[i];
+            step[i] = expected[i] - itemScores[i];
+        }
+        step[reducedSize] = 0;
+
+        if (!NewtonSolver.choleskySolve(reduced, reducedSize, step)) {
+            for (int i = 0; i < size; i++) {
+                step[i] = (expected[i] - itemScores[i]) / Math.max(information[i], ProbabilityKernel.MIN_INFORMATION);
+            }
+        }
+
+        double largest = 0;
+        for (double value : step) {
+            largest = Math.max(largest, Math.abs(value));
+        }
+        double scale = largest > MAX_STEP ? MAX_STEP / largest : 1.0;
+        double slope = 0;
+        for (int i = 0; i < size; i++) {
+            step[i] *= scale;
+            slope += (expected[i] - itemScores[i]) * step[i];
+        }
+        return slope;
+    }
+
+    static final class SymmetricFunctions {
+        private static final double LN2 = Math.log(2);
+
+        final int size;
+        final double[] epsilon;
+        final double[] gamma;
+        final int[] gammaExponent;
+        final double[] ratios;
+        private final double[] without;
+        private final int[] withoutExponent;
+
+        SymmetricFunctions(int size) {
+            this.size = size;
+            this.epsilon = new double[size];
+            this.gamma = new double[size + 1];
+            this.gammaExponent = new int[size + 1];
+            this.ratios = new double[(size + 1) * size];
+            this.without = new double[size];
+            this.withoutExponent = new int[size];
+        }
+
+        void update(double[] difficulties) {
+            for (int i = 0; i < size; i++) {
+                epsilon[i] = Math.exp(-difficulties[i]);
+            }
+
+            Arrays.fill(gamma, 0);
+            Arrays.fill(gammaExponent, 0);
+            gamma[0] = 1;
+            for (int k = 0; k < size; k++) {
+                double e = epsilon[k];
+                for (int r = k + 1; r >= 1; r--) {
+                    add(gamma, gammaExponent, r, gamma[r], gammaExponent[r], e * gamma[r - 1], gammaExponent[r - 1]);
+                }
+            }
+
+            for (int i = 0; i < size; i++) {
+                removeItem(i);
+                double e = epsilon[i];
+                for (int r = 1; r < size; r++) {
+                    double ratio = gamma[r] > 0
+                        ? Math.scalb(e * without[r - 1] / gamma[r], withoutExponent[r - 1] - gammaExponent[r])
+                        : 0;
+                    ratios[r * size + i] = Math.max(0, Math.min(1, ratio));
+                }
+            }
+        }
+
+        double accumulate(double[] difficulties, int[] itemScores, int[] scoreCounts, double[] expected) {
+            Arrays.fill(expected, 0);
+            double logLikelihood = 0;
+            for (int score = 1; score < size; score++) {
+                int count = scoreCounts[score];
+                if (count == 0) continue;
+                logLikelihood -= count * logGamma(score);
+                int row = score * size;
+                for (int i = 0; i < size; i++) {
+                    expected[i] += count * ratios[row + i];
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                logLikelihood -= itemScores[i] * difficulties[i];
+            }
+            return logLikelihood;
+        }
+
+        double logGamma(int score) {
+            return Math.log(gamma[score]) + gammaExponent[score] * LN2;
+        }
+
+        private void removeItem(int item) {
+            double e = epsilon[item];
+            int last = size - 1;
+            without[0] = gamma[0];
+            withoutExponent[0] = gammaExponent[0];
+            int forward = 1;
+            while (forward <= last) {
+                double share = Math.scalb(e * without[forward - 1] / gamma[forward],
+                    withoutExponent[forward - 1] - gammaExponent[forward]);
+                if (!(share < 0.5)) break;
+                add(without, withoutExponent, forward, gamma[forward], gammaExponent[forward],
+                    -e * without[forward - 1], withoutExponent[forward - 1]);
+                forward++;
+            }
+            if (forward > last) {
+                return;
+            }
+            normalize(without, withoutExponent, last, gamma[size] / e, gammaExponent[size]);
+            for (int r = last; r > forward; r--) {
+                add(without, withoutExponent, r - 1, gamma[r], gammaExponent[r], -without[r], withoutExponent[r]);
+                normalize(without, withoutExponent, r - 1, without[r - 1] / e, withoutExponent[r - 1]);
+            }
+        }
+
+        private static void add(double[] mantissa, int[] exponent, int index,
+                                double a, int aExponent, double b, int bExponent) {
+            if (a == 0) {
+                normalize(mantissa, exponent, index, b, bExponent);
+            } else if (b == 0) {
+                normalize(mantissa, exponent, index, a, aExponent);
+            } else if (aExponent >= bExponent) {
+                normalize(mantissa, exponent, index, a + Math.scalb(b, bExponent - aExponent), aExponent);
+            } else {
+                normalize(mantissa, exponent, index, Math.scalb(a, aExponent - bExponent) + b, bExponent);
+            }
+        }
+
+        private static void normalize(double[] mantissa, int[] exponent, int index, double value, int scale) {
+            if (value == 0 || !Double.isFinite(value)) {
+                mantissa[index] = 0;
+                exponent[index] = 0;
+                return;
+            }
+            int shift = Math.getExponent(value);
+            mantissa[index] = Math.scalb(value, -shift);
+            exponent[index] = scale + shift;
+        }
+    }
+}
@@ -5,12 +5,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -19,20 +19,47 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 public class DataReader {
     
+    private final ReaderSettings settings;
+    private final ResponseMatrixCache cache;
+    private final MappedCsvReader mappedCsvReader;
+    
     public enum FileType {
         XLSX, XLS, CSV, UNSUPPORTED
     }
     
-    public double[][] readData(File file) throws IOException {
+    public DataReader() {
+        this(ReaderSettings.defaults());
+    }
+    
+    public DataReader(ReaderSettings settings) {
+        this.settings = settings != null ? settings : ReaderSettings.defaults();
+        this.cache = this.settings.isCacheEnabled() ? new ResponseMatrixCache(this.settings.getCacheDirectory(), this.settings.getCacheLimit()) : null;
+        this.mappedCsvReader = this.settings.isMappedCsv() ? new MappedCsvReader(this.settings.getParallelism()) : null;
+    }
+    
+    public ResponseMatrix readData(File file) throws IOException {
         FileType fileType = determineFileType(file);
+        if (fileType == FileType.UNSUPPORTED || cache == null) {
+            return parse(file, fileType);
+        }
         
+        ResponseMatrix cached = cache.load(file);
+        if (cached != null) {
+            return cached;
+        }
+        ResponseMatrix data = parse(file, fileType);
+        cache.store(file, data);
+        return data;
+    }
+    
+    private ResponseMatrix parse(File file, FileType fileType) throws IOException {
         switch (fileType) {
             case XLSX:
-                return readExcel(file, false);
+                return settings.isStreamingExcel() ? new XlsxStreamingReader().read(file) : readExcel(file, false);
             case XLS:
                 return readExcel(file, true);
             case CSV:
-                return readCsv(file);
+                return mappedCsvReader != null ? mappedCsvReader.read(file) : readCsv(file);
             default:
                 throw new IOException("Неподдерживаемый формат файла. Поддерживаются только .xlsx, .xls и .csv");
         }
@@ -51,8 +78,8 @@ public class DataReader {
         }
     }
     
-    private double[][] readExcel(File file, boolean isOldFormat) throws IOException {
-        List<double[]> dataList = new ArrayList<>();
+    private ResponseMatrix readExcel(File file, boolean isOldFormat) throws IOException {
+        ResponseMatrix.Builder builder = null;
         
         try (FileInputStream fis = new FileInputStream(file);
              Workbook workbook = isOldFormat ? new HSSFWorkbook(fis) : new XSSFWorkbook(fis)) {
@@ -63,55 +90,55 @@ public class DataReader {
             
             if (lastRowNum <= firstRowNum) {
                 System.out.println("Пустой файл Excel");
-                return new double[0][0];
+                return ResponseMatrix.empty();
             }
             
             Row headerRow = sheet.getRow(firstRowNum);
             if (headerRow == null) {
                 System.out.println("Нет заголовка в Excel");
-                return new double[0][0];
+                return ResponseMatrix.empty();
             }
             
             int numCols = countNonEmptyColumns(headerRow);
             
             if (numCols <= 0) {
                 System.out.println("Нет столбцов с данными");
-                return new double[0][0];
+                return ResponseMatrix.empty();
             }
             
             System.out.println("Найдено " + numCols + " столбцов данных");
             
+            builder = ResponseMatrix.builder(numCols).withItemNames(readHeaderNames(headerRow, numCols));
+            boolean[] rowData = new boolean[numCols];
+            boolean[] observed = new boolean[numCols];
+            
             for (int i = firstRowNum + 1; i <= lastRowNum; i++) {
                 Row row = sheet.getRow(i);
                 if (row == null) continue;
                 
-                double[] rowData = new double[numCols];
                 boolean hasData = false;
                 
                 for (int j = 0; j < numCols; j++) {
                     Cell cell = row.getCell(j + 1);
                     double value = extractNumericValue(cell);
-                    if (value != -1) {
-                        rowData[j] = value > 0 ? 1.0 : 0.0;
-                        hasData = true;
-                    } else {
-                        rowData[j] = 0.0;
-                    }
+                    observed[j] = value != -1;
+                    rowData[j] = observed[j] && value > 0;
+                    hasData |= observed[j];
                 }
                 
                 if (hasData) {
-                    dataList.add(rowData);
+                    builder.addRow(rowData, observed);
                 }
             }
         }
         
-        if (dataList.isEmpty()) {
+        if (builder.getNumPersons() == 0) {
             System.out.println("Не удалось прочитать данные из Excel");
-            return new double[0][0];
+            return ResponseMatrix.empty();
         }
         
-        System.out.println("Прочитано строк данных: " + dataList.size());
-        return dataList.toArray(new double[0][]);
+        System.out.println("Прочитано строк данных: " + builder.getNumPersons());
+        return builder.build();
     }
     
     private int countNonEmptyColumns(Row row) {
@@ -127,6 +154,23 @@ public class DataReader {
         return count;
     }
     
+    private String[] readHeaderNames(Row headerRow, int numCols) {
+        DataFormatter formatter = new DataFormatter();
+        String[] names = new String[numCols];
+        for (int j = 0; j < numCols; j++) {
+            names[j] = formatter.formatCellValue(headerRow.getCell(j + 1)).trim();
+        }
+        return names;
+    }
+    
+    static String[] parseHeaderNames(String[] headerCols, int numCols) {
+        String[] names = new String[numCols];
+        for (int i = 0; i < numCols; i++) {
+            names[i] = headerCols[i + 1].replace("\"", "").trim();
+        }
+        return names;
+    }
+    
     private double extractNumericValue(Cell cell) {
         if (cell == null || cell.getCellType() == CellType.BLANK) {
             return -1;
@@ -140,20 +184,7 @@ public class DataReader {
                     }
                     return cell.getNumericCellValue();
                 case STRING:
-                    String value = cell.getStringCellValue().trim();
-                    if (value.isEmpty()) return -1;
-                    
-                    try {
-                        return Double.parseDouble(value);
-                    } catch (NumberFormatException e) {
-                        String lowercaseValue = value.toLowerCase();
-                        if (lowercaseValue.equals("1") || lowercaseValue.equals("true") || 
-                            lowercaseValue.equals("да") || lowercaseValue.equals("yes") || 
-                            lowercaseValue.equals("+")) {
-                            return 1.0;
-                        }
-                        return 0.0;
-                    }
+                    return parseStringValue(cell.getStringCellValue());
                 case BOOLEAN:
                     return cell.getBooleanCellValue() ? 1.0 : 0.0;
                 case FORMULA:
@@ -179,24 +210,45 @@ public class DataReader {
         }
     }
     
-    private double[][] readCsv(File file) throws IOException {
-        List<double[]> dataList = new ArrayList<>();
+    static double parseStringValue(String rawValue) {
+        String value = rawValue.trim();
+        if (value.isEmpty()) return -1;
+        
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            String lowercaseValue = value.toLowerCase();
+            if (lowercaseValue.equals("1") || lowercaseValue.equals("true") || 
+                lowercaseValue.equals("да") || lowercaseValue.equals("yes") || 
+                lowercaseValue.equals("+")) {
+                return 1.0;
+            }
+            return 0.0;
+        }
+    }
+    
+    private ResponseMatrix readCsv(File file) throws IOException {
+        ResponseMatrix.Builder builder;
         String line;
         String cvsSplitBy = ";";
         
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String header = br.readLine();
             if (header == null) {
-                return new double[0][0];
+                return ResponseMatrix.empty();
             }
             
             String[] headerCols = header.split(cvsSplitBy);
             int numCols = headerCols.length - 1;
             
             if (numCols <= 0) {
-                return new double[0][0];
+                return ResponseMatrix.empty();
             }
             
+            builder = ResponseMatrix.builder(numCols).withItemNames(parseHeaderNames(headerCols, numCols));
+            boolean[] rowData = new boolean[numCols];
+            boolean[] observed = new boolean[numCols];
+            
             while ((line = br.readLine()) != null) {
                 String[] data = line.split(cvsSplitBy);
                 
@@ -204,38 +256,34 @@ public class DataReader {
                     continue;
                 }
                 
-                double[] rowData = new double[numCols];
+                Arrays.fill(rowData, false);
+                Arrays.fill(observed, false);
                 boolean hasData = false;
                 
                 for (int i = 0; i < numCols && i+1 < data.length; i++) {
                     String value = data[i + 1].replace("\"", "").trim();
                     if (value.isEmpty()) {
-                        rowData[i] = 0.0;
                         continue;
                     }
                     
                     try {
                         double numValue = Double.parseDouble(value);
-                        rowData[i] = numValue > 0 ? 1.0 : 0.0;
-                        hasData = true;
+                        rowData[i] = numValue > 0;
                     } catch (NumberFormatException e) {
-                        if (value.equalsIgnoreCase("1") || value.equalsIgnoreCase("true") || 
+                        rowData[i] = value.equalsIgnoreCase("1") || value.equalsIgnoreCase("true") || 
                             value.equalsIgnoreCase("да") || value.equalsIgnoreCase("yes") ||
-                            value.equals("+")) {
-                            rowData[i] = 1.0;
-                        } else {
-                            rowData[i] = 0.0;
-                        }
-                        hasData = true;
+                            value.equals("+");
                     }
+                    observed[i] = true;
+                    hasData = true;
                 }
                 
                 if (hasData) {
-                    dataList.add(rowData);
+                    builder.addRow(rowData, observed);
                 }
             }
         }
         
-        return dataList.isEmpty() ? new double[0][0] : dataList.toArray(new double[0][]);
+        return builder.getNumPersons() == 0 ? ResponseMatrix.empty() : builder.build();
     }
-} 
\ No newline at end of file
+} 
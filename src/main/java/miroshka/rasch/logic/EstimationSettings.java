@@ -0,0 +1,286 @@
+package miroshka.rasch.logic;
+
+public final class EstimationSettings {
+    private final int parallelism;
+    private final PersonEstimation personEstimation;
+    private final Method method;
+    private final Solver solver;
+    private final StartValues startValues;
+    private final boolean patternDeduplication;
+    private final Logistic logistic;
+    private final Kernel kernel;
+    private final FitComputation fitComputation;
+    private final double logisticTolerance;
+    private final int quadraturePoints;
+    private final int maxIterations;
+    private final double parameterTolerance;
+    private final double residualTolerance;
+
+    private EstimationSettings(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.personEstimation = builder.personEstimation;
+        this.method = builder.method;
+        this.solver = builder.solver;
+        this.startValues = builder.startValues;
+        this.patternDeduplication = builder.patternDeduplication;
+        this.logistic = builder.logistic;
+        this.kernel = builder.kernel;
+        this.fitComputation = builder.fitComputation;
+        this.logisticTolerance = builder.logisticTolerance;
+        this.quadraturePoints = builder.quadraturePoints;
+        this.maxIterations = builder.maxIterations;
+        this.parameterTolerance = builder.parameterTolerance;
+        this.residualTolerance = builder.residualTolerance;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public PersonEstimation getPersonEstimation() {
+        return personEstimation;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Solver getSolver() {
+        return solver;
+    }
+
+    public StartValues getStartValues() {
+        return startValues;
+    }
+
+    public boolean isPatternDeduplication() {
+        return patternDeduplication;
+    }
+
+    public Logistic getLogistic() {
+        return logistic;
+    }
+
+    public double getLogisticTolerance() {
+        return logisticTolerance;
+    }
+
+    public Kernel getKernel() {
+        return kernel;
+    }
+
+    public FitComputation getFitComputation() {
+        return fitComputation;
+    }
+
+    public int getQuadraturePoints() {
+        return quadraturePoints;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public double getParameterTolerance() {
+        return parameterTolerance;
+    }
+
+    public double getResidualTolerance() {
+        return residualTolerance;
+    }
+
+    public boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EstimationSettings{parallelism=%d, personEstimation=%s, method=%s, solver=%s, startValues=%s, patternDeduplication=%s, logistic=%s, logisticTolerance=%s, kernel=%s, fitComputation=%s, quadraturePoints=%d, maxIterations=%d, parameterTolerance=%s, residualTolerance=%s}",
+            parallelism, personEstimation, method, solver, startValues, patternDeduplication, logistic, logisticTolerance, kernel, fitComputation, quadraturePoints, maxIterations, parameterTolerance, residualTolerance);
+    }
+
+    public static EstimationSettings defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public enum PersonEstimation {
+        INDIVIDUAL, SCORE_GROUPS
+    }
+
+    public enum Method {
+        JMLE, CML, MML
+    }
+
+    public enum Solver {
+        DAMPED, NEWTON
+    }
+
+    public enum StartValues {
+        ZERO, PROX
+    }
+
+    public enum Logistic {
+        EXACT, TABULATED
+    }
+
+    /**
+     * VECTOR always evaluates the exact logistic; {@link Logistic#TABULATED} only applies when it falls back
+     * to the scalar kernel.
+     */
+    public enum Kernel {
+        SCALAR, VECTOR
+    }
+
+    /**
+     * LAZY and BACKGROUND keep the response matrix and its pattern index reachable from the result
+     * until the fit statistics have been computed; the references are dropped right after that.
+     * With LAZY the computation runs on whichever thread first reads a fit statistic, so a result that is
+     * kept but never asked for fit pins the full response matrix (only the unique patterns when
+     * deduplication is on) together with private copies of the estimates.
+     */
+    public enum FitComputation {
+        EAGER, LAZY, BACKGROUND
+    }
+
+    public static final class Builder {
+        private int parallelism = 1;
+        private PersonEstimation personEstimation = PersonEstimation.INDIVIDUAL;
+        private Method method = Method.JMLE;
+        private Solver solver = Solver.DAMPED;
+        private StartValues startValues = StartValues.ZERO;
+        private boolean patternDeduplication = true;
+        private Logistic logistic = Logistic.EXACT;
+        private double logisticTolerance = 1e-6;
+        private Kernel kernel = Kernel.SCALAR;
+        private FitComputation fitComputation = FitComputation.EAGER;
+        private int quadraturePoints = 31;
+        private int maxIterations = 100;
+        private double parameterTolerance = 0.001;
+        private double residualTolerance = 0.01;
+
+        private Builder() {
+        }
+
+        public Builder withParallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Уровень параллелизма должен быть положительным числом");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withPersonEstimation(PersonEstimation personEstimation) {
+            if (personEstimation == null) {
+                throw new IllegalArgumentException("Способ оценки способностей не может быть null");
+            }
+            this.personEstimation = personEstimation;
+            return this;
+        }
+
+        public Builder withMethod(Method method) {
+            if (method == null) {
+                throw new IllegalArgumentException("Метод оценивания не может быть null");
+            }
+            this.method = method;
+            return this;
+        }
+
+        public Builder withSolver(Solver solver) {
+            if (solver == null) {
+                throw new IllegalArgumentException("Метод решения не может быть null");
+            }
+            this.solver = solver;
+            return this;
+        }
+
+        public Builder withStartValues(StartValues startValues) {
+            if (startValues == null) {
+                throw new IllegalArgumentException("Способ выбора начальных значений не может быть null");
+            }
+            this.startValues = startValues;
+            return this;
+        }
+
+        public Builder withPatternDeduplication(boolean patternDeduplication) {
+            this.patternDeduplication = patternDeduplication;
+            return this;
+        }
+
+        public Builder withLogistic(Logistic logistic) {
+            if (logistic == null) {
+                throw new IllegalArgumentException("Способ вычисления логистической функции не может быть null");
+            }
+            this.logistic = logistic;
+            return this;
+        }
+
+        public Builder withLogisticTolerance(double logisticTolerance) {
+            if (!(logisticTolerance >= 1e-9 && logisticTolerance <= 1e-2)) {
+                throw new IllegalArgumentException("Погрешность логистической функции должна быть от 1e-9 до 0.01");
+            }
+            this.logisticTolerance = logisticTolerance;
+            return this;
+        }
+
+        public Builder withKernel(Kernel kernel) {
+            if (kernel == null) {
+                throw new IllegalArgumentException("Тип вычислительного ядра не может быть null");
+            }
+            this.kernel = kernel;
+            return this;
+        }
+
+        public Builder withFitComputation(FitComputation fitComputation) {
+            if (fitComputation == null) {
+                throw new IllegalArgumentException("Способ вычисления статистик согласия не может быть null");
+            }
+            this.fitComputation = fitComputation;
+            return this;
+        }
+
+        public Builder withQuadraturePoints(int quadraturePoints) {
+            if (quadraturePoints < 2 || quadraturePoints > 100) {
+                throw new IllegalArgumentException("Количество узлов квадратуры должно быть от 2 до 100");
+            }
+            this.quadraturePoints = quadraturePoints;
+            return this;
+        }
+
+        public Builder withMaxIterations(int maxIterations) {
+            if (maxIterations <= 0) {
+                throw new IllegalArgumentException("Максимальное число итераций должно быть положительным");
+            }
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        public Builder withParameterTolerance(double parameterTolerance) {
+            this.parameterTolerance = requireTolerance(parameterTolerance);
+            return this;
+        }
+
+        public Builder withResidualTolerance(double residualTolerance) {
+            this.residualTolerance = requireTolerance(residualTolerance);
+            return this;
+        }
+
+        private static double requireTolerance(double tolerance) {
+            if (Double.isNaN(tolerance) || tolerance <= 0) {
+                throw new IllegalArgumentException("Критерий сходимости должен быть положительным числом");
+            }
+            return tolerance;
+        }
+
+        public Builder withAllProcessors() {
+            return withParallelism(Runtime.getRuntime().availableProcessors());
+        }
+
+        public EstimationSettings build() {
+            return new EstimationSettings(this);
+        }
+    }
+}
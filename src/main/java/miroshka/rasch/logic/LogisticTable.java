@@ -0,0 +1,72 @@
+package miroshka.rasch.logic;
+
+final class LogisticTable {
+    private static final double MAX_CURVATURE = 0.0963;
+    private static final int SAMPLES_PER_INTERVAL = 8;
+    private static final int MAX_REFINEMENTS = 4;
+
+    private final double scale;
+    private final int lastInterval;
+    private final double[] table;
+    private final double maxError;
+
+    private LogisticTable(double step) {
+        int intervals = (int) Math.ceil(2 * ProbabilityKernel.LOGIT_LIMIT / step);
+        this.scale = intervals / (2 * ProbabilityKernel.LOGIT_LIMIT);
+        this.lastInterval = intervals - 1;
+        this.table = new double[2 * intervals];
+        double previous = exact(0);
+        for (int k = 0; k < intervals; k++) {
+            double next = exact(k + 1);
+            table[2 * k] = previous;
+            table[2 * k + 1] = next - previous;
+            previous = next;
+        }
+        this.maxError = measureError();
+    }
+
+    static LogisticTable forTolerance(double tolerance) {
+        double step = Math.sqrt(8 * tolerance / MAX_CURVATURE);
+        LogisticTable table = new LogisticTable(step);
+        for (int refinement = 0; refinement < MAX_REFINEMENTS && table.maxError > tolerance; refinement++) {
+            step /= 2;
+            table = new LogisticTable(step);
+        }
+        if (table.maxError > tolerance) {
+            throw new IllegalStateException("Не удалось построить таблицу логистической функции с погрешностью " + tolerance);
+        }
+        return table;
+    }
+
+    double probability(double ability, double difficulty) {
+        double logit = Math.max(Math.min(ability - difficulty, ProbabilityKernel.LOGIT_LIMIT), -ProbabilityKernel.LOGIT_LIMIT);
+        double position = (logit + ProbabilityKernel.LOGIT_LIMIT) * scale;
+        int interval = Math.min((int) position, lastInterval);
+        int offset = 2 * interval;
+        return table[offset] + table[offset + 1] * (position - interval);
+    }
+
+    int size() {
+        return lastInterval + 1;
+    }
+
+    double getMaxError() {
+        return maxError;
+    }
+
+    private double exact(double position) {
+        return ProbabilityKernel.probability(position / scale - ProbabilityKernel.LOGIT_LIMIT, 0);
+    }
+
+    private double measureError() {
+        double error = 0;
+        for (int k = 0; k <= lastInterval; k++) {
+            for (int sample = 0; sample <= SAMPLES_PER_INTERVAL; sample++) {
+                double position = k + (double) sample / SAMPLES_PER_INTERVAL;
+                double logit = position / scale - ProbabilityKernel.LOGIT_LIMIT;
+                error = Math.max(error, Math.abs(probability(logit, 0) - exact(position)));
+            }
+        }
+        return error;
+    }
+}
@@ -0,0 +1,326 @@
+package miroshka.rasch.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+final class MappedCsvReader {
+    private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+    private static final byte SEPARATOR = ';';
+    private static final byte QUOTE = '"';
+    private static final int NOT_DECIMAL = -1;
+    private static final int NOT_POSITIVE = 0;
+    private static final int POSITIVE = 1;
+    private static final int MIN_CHUNK_SIZE = 4 << 20;
+
+    private final long windowSize;
+    private final int minChunkSize;
+    private final ParallelExecutor executor;
+
+    MappedCsvReader(int parallelism) {
+        this(DEFAULT_WINDOW_SIZE, parallelism);
+    }
+
+    MappedCsvReader(long windowSize, int parallelism) {
+        this(windowSize, MIN_CHUNK_SIZE, parallelism);
+    }
+
+    MappedCsvReader(long windowSize, int minChunkSize, int parallelism) {
+        this.windowSize = windowSize;
+        this.minChunkSize = minChunkSize;
+        this.executor = new ParallelExecutor(parallelism);
+    }
+
+    ResponseMatrix read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ResponseMatrix.Builder builder = null;
+            long position = 0;
+
+            while (position < size) {
+                long length = Math.min(windowSize, size - position);
+                boolean lastWindow = position + length == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = (int) length;
+
+                int start = 0;
+                if (builder == null) {
+                    int headerEnd = findLineEnd(buffer, 0, limit);
+                    if (headerEnd == limit && !lastWindow) {
+                        throw new IOException("Строка CSV превышает допустимую длину");
+                    }
+                    int numCols = countHeaderColumns(buffer, 0, headerEnd);
+                    if (numCols <= 0) {
+                        return ResponseMatrix.empty();
+                    }
+                    builder = ResponseMatrix.builder(numCols).withItemNames(readHeaderNames(buffer, headerEnd, numCols));
+                    start = skipLineBreak(buffer, headerEnd, limit);
+                }
+
+                int end = lastWindow ? limit : lastLineBoundary(buffer, start, limit);
+                if (end == 0) {
+                    throw new IOException("Строка CSV превышает допустимую длину");
+                }
+                parseRegion(buffer, start, end, builder);
+                position += Math.max(start, end);
+            }
+
+            return builder != null ? builder.build() : ResponseMatrix.empty();
+        }
+    }
+
+    private void parseRegion(ByteBuffer buffer, int start, int end, ResponseMatrix.Builder builder) {
+        if (end <= start) {
+            return;
+        }
+        int chunks = executor.isParallel()
+            ? (int) Math.min(executor.getParallelism() * 4L, (end - start) / minChunkSize)
+            : 1;
+        if (chunks <= 1) {
+            new LineParser(builder).parseLines(buffer, start, end);
+            return;
+        }
+
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = start;
+        bounds[chunks] = end;
+        for (int c = 1; c < chunks; c++) {
+            int nominal = Math.max(bounds[c - 1], start + (int) ((long) (end - start) * c / chunks));
+            bounds[c] = nextLineStart(buffer, nominal, end);
+        }
+
+        ResponseMatrix.Builder[] parts = new ResponseMatrix.Builder[chunks];
+        executor.forEachBlock(chunks, chunks, (chunk, from, to) -> {
+            ResponseMatrix.Builder part = ResponseMatrix.builder(builder.getNumItems());
+            new LineParser(part).parseLines(buffer, bounds[chunk], bounds[chunk + 1]);
+            parts[chunk] = part;
+        });
+        for (ResponseMatrix.Builder part : parts) {
+            builder.append(part);
+        }
+    }
+
+    private static int nextLineStart(ByteBuffer buffer, int from, int end) {
+        int lineEnd = findLineEnd(buffer, from, end);
+        return skipLineBreak(buffer, lineEnd, end);
+    }
+
+    private static int lastLineBoundary(ByteBuffer buffer, int start, int limit) {
+        for (int k = limit - 1; k >= start; k--) {
+            byte b = buffer.get(k);
+            if (b == '\n' || b == '\r') {
+                return k + 1;
+            }
+        }
+        return start;
+    }
+
+    static int findLineEnd(ByteBuffer buffer, int from, int limit) {
+        for (int k = from; k < limit; k++) {
+            byte b = buffer.get(k);
+            if (b == '\n' || b == '\r') {
+                return k;
+            }
+        }
+        return limit;
+    }
+
+    static int skipLineBreak(ByteBuffer buffer, int lineEnd, int limit) {
+        if (lineEnd >= limit) {
+            return limit;
+        }
+        if (buffer.get(lineEnd) == '\r' && lineEnd + 1 < limit && buffer.get(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    static int countHeaderColumns(ByteBuffer buffer, int start, int end) {
+        int field = 0;
+        int lastNonEmptyField = -1;
+        int fieldStart = start;
+        for (int k = start; k <= end; k++) {
+            if (k == end || buffer.get(k) == SEPARATOR) {
+                if (k > fieldStart) {
+                    lastNonEmptyField = field;
+                }
+                field++;
+                fieldStart = k + 1;
+            }
+        }
+        return lastNonEmptyField;
+    }
+
+    private static String[] readHeaderNames(ByteBuffer buffer, int headerEnd, int numCols) {
+        byte[] header = new byte[headerEnd];
+        buffer.get(0, header);
+        return DataReader.parseHeaderNames(new String(header, StandardCharsets.UTF_8).split(";"), numCols);
+    }
+
+    static final class LineParser {
+        private final int numCols;
+        private final ResponseMatrix.Builder builder;
+        private final long[] rowWords;
+        private final long[] observedWords;
+        private byte[] token = new byte[64];
+
+        LineParser(ResponseMatrix.Builder builder) {
+            this.numCols = builder.getNumItems();
+            this.builder = builder;
+            this.rowWords = new long[ResponseMatrix.wordsPerRow(numCols)];
+            this.observedWords = new long[rowWords.length];
+        }
+
+        void parseLines(ByteBuffer buffer, int from, int to) {
+            int lineStart = from;
+            while (lineStart < to) {
+                int lineEnd = findLineEnd(buffer, lineStart, to);
+                parseRow(buffer, lineStart, lineEnd);
+                lineStart = skipLineBreak(buffer, lineEnd, to);
+            }
+        }
+
+        void parseRow(ByteBuffer buffer, int start, int end) {
+            Arrays.fill(rowWords, 0L);
+            Arrays.fill(observedWords, 0L);
+            boolean hasData = false;
+            int field = 0;
+            int fieldStart = start;
+
+            for (int k = start; k <= end; k++) {
+                if (k != end && buffer.get(k) != SEPARATOR) {
+                    continue;
+                }
+                if (field >= 1) {
+                    int item = field - 1;
+                    int length = copyToken(buffer, fieldStart, k);
+                    if (length > 0) {
+                        hasData = true;
+                        observedWords[item >>> 6] |= 1L << item;
+                        if (isCorrect(token, length)) {
+                            rowWords[item >>> 6] |= 1L << item;
+                        }
+                    }
+                }
+                field++;
+                fieldStart = k + 1;
+                if (field > numCols) {
+                    break;
+                }
+            }
+
+            if (hasData) {
+                builder.addRow(rowWords, observedWords);
+            }
+        }
+
+        private int copyToken(ByteBuffer buffer, int from, int to) {
+            if (to - from > token.length) {
+                token = new byte[Math.max(to - from, token.length * 2)];
+            }
+            int length = 0;
+            for (int k = from; k < to; k++) {
+                byte b = buffer.get(k);
+                if (b != QUOTE) {
+                    token[length++] = b;
+                }
+            }
+
+            int begin = 0;
+            while (begin < length && (token[begin] & 0xFF) <= ' ') {
+                begin++;
+            }
+            while (length > begin && (token[length - 1] & 0xFF) <= ' ') {
+                length--;
+            }
+            if (begin > 0) {
+                System.arraycopy(token, begin, token, 0, length - begin);
+            }
+            return length - begin;
+        }
+    }
+
+    static boolean isCorrect(byte[] token, int length) {
+        if (length == 1) {
+            byte b = token[0];
+            if (b >= '0' && b <= '9') {
+                return b != '0';
+            }
+            if (b == '+') {
+                return true;
+            }
+        }
+
+        int numeric = classifyDecimal(token, length);
+        if (numeric != NOT_DECIMAL) {
+            return numeric == POSITIVE;
+        }
+
+        if (matchesIgnoreCase(token, length, "true") || matchesIgnoreCase(token, length, "yes") || isYesInRussian(token, length)) {
+            return true;
+        }
+
+        byte first = token[0] == '+' || token[0] == '-' ? (length > 1 ? token[1] : 0) : token[0];
+        if ((first >= '0' && first <= '9') || first == '.' || first == 'N' || first == 'I') {
+            return DataReader.parseStringValue(new String(token, 0, length, StandardCharsets.ISO_8859_1)) > 0;
+        }
+        return false;
+    }
+
+    private static int classifyDecimal(byte[] token, int length) {
+        int k = 0;
+        boolean negative = false;
+        if (token[0] == '+' || token[0] == '-') {
+            negative = token[0] == '-';
+            k++;
+        }
+
+        boolean digits = false;
+        boolean nonZero = false;
+        boolean point = false;
+        for (; k < length; k++) {
+            byte b = token[k];
+            if (b >= '0' && b <= '9') {
+                digits = true;
+                nonZero |= b != '0';
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                return NOT_DECIMAL;
+            }
+        }
+        if (!digits) {
+            return NOT_DECIMAL;
+        }
+        return nonZero && !negative ? POSITIVE : NOT_POSITIVE;
+    }
+
+    private static boolean matchesIgnoreCase(byte[] token, int length, String word) {
+        if (length != word.length()) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if ((token[k] | 0x20) != word.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isYesInRussian(byte[] token, int length) {
+        if (length == 4) {
+            return (token[0] & 0xFF) == 0xD0 && ((token[1] & 0xFF) == 0xB4 || (token[1] & 0xFF) == 0x94)
+                && (token[2] & 0xFF) == 0xD0 && ((token[3] & 0xFF) == 0xB0 || (token[3] & 0xFF) == 0x90);
+        }
+        if (length == 2) {
+            return ((token[0] & 0xFF) == 0xE4 || (token[0] & 0xFF) == 0xC4)
+                && ((token[1] & 0xFF) == 0xE0 || (token[1] & 0xFF) == 0xC0);
+        }
+        return false;
+    }
+}
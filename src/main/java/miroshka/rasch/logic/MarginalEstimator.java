@@ -0,0 +1,331 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class MarginalEstimator {
+    private static final double MIN_STANDARD_DEVIATION = 0.05;
+    private static final int MAX_ROOT_ITERATIONS = 100;
+    private static final double ROOT_TOLERANCE = 1e-14;
+    private static final int MAX_ITEM_ITERATIONS = 20;
+    private static final double ITEM_TOLERANCE = 1e-8;
+
+    private final ParallelExecutor executor;
+    private final int maxIterations;
+    private final double parameterTolerance;
+    private final double residualTolerance;
+    private final double[] standardNodes;
+    private final double[] standardWeights;
+    private RaschModel.Population population = RaschModel.Population.notAvailable();
+    private ScoreTable scoreTable;
+    private double[] scoreCounts;
+    private double[] targets;
+    private double totalWeight;
+    private double[] nodes;
+    private double[] logPrior;
+    private double[] nodeCounts;
+    private double lastResidual;
+
+    MarginalEstimator(ParallelExecutor executor, EstimationSettings settings) {
+        this.executor = executor;
+        this.maxIterations = settings.getMaxIterations();
+        this.parameterTolerance = settings.getParameterTolerance();
+        this.residualTolerance = settings.getResidualTolerance();
+        int points = settings.getQuadraturePoints();
+        this.standardNodes = new double[points];
+        this.standardWeights = new double[points];
+        gaussHermite(standardNodes, standardWeights);
+    }
+
+    RaschModel.Population getPopulation() {
+        return population;
+    }
+
+    ScoreTable getScoreTable() {
+        return scoreTable;
+    }
+
+    RaschModel.Convergence estimate(double[] abilities, int[] scores, int[] weights,
+                                    double[] difficulties, int[] itemScores) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+        int points = standardNodes.length;
+
+        scoreCounts = new double[numItems + 1];
+        totalWeight = 0;
+        double sum = 0;
+        double sumSq = 0;
+        for (int u = 0; u < numUnits; u++) {
+            double weight = weights != null ? weights[u] : 1;
+            scoreCounts[scores[u]] += weight;
+            totalWeight += weight;
+            sum += weight * abilities[u];
+            sumSq += weight * abilities[u] * abilities[u];
+        }
+        double mean = sum / totalWeight;
+        double deviation = Math.sqrt(Math.max(0, sumSq / totalWeight - mean * mean));
+        targets = new double[numItems];
+        for (int i = 0; i < numItems; i++) {
+            targets[i] = Math.max(ActiveSet.EXTREME_ADJUSTMENT,
+                Math.min(itemScores[i], totalWeight - ActiveSet.EXTREME_ADJUSTMENT));
+        }
+        nodes = new double[points];
+        logPrior = new double[points];
+        nodeCounts = new double[points];
+
+        int size = numItems + 1;
+        double[] current = new double[size];
+        double[] first = new double[size];
+        double[] second = new double[size];
+        double[] accelerated = new double[size];
+        double[] next = new double[size];
+        for (int i = 0; i < numItems; i++) {
+            current[i] = difficulties[i] - mean;
+        }
+        current[numItems] = deviation < MIN_STANDARD_DEVIATION ? 1.0 : deviation;
+
+        double[] residualHistory = new double[maxIterations + 1];
+        double maxChange = Double.POSITIVE_INFINITY;
+        double maxResidual;
+        boolean converged = false;
+        int iteration = 0;
+
+        while (true) {
+            double logLikelihood = update(current, first);
+            maxResidual = lastResidual;
+            residualHistory[iteration] = maxResidual;
+
+            if (maxChange < parameterTolerance && maxResidual < residualTolerance) {
+                converged = true;
+                break;
+            }
+            if (iteration == maxIterations) {
+                break;
+            }
+
+            update(first, second);
+            double stepNorm = 0;
+            double curvatureNorm = 0;
+            for (int k = 0; k < size; k++) {
+                double step = first[k] - current[k];
+                double curvature = second[k] - 2 * first[k] + current[k];
+                stepNorm += step * step;
+                curvatureNorm += curvature * curvature;
+            }
+            double alpha = curvatureNorm > 0 ? Math.min(-1.0, -Math.sqrt(stepNorm / curvatureNorm)) : -1.0;
+            double[] accepted = second;
+            if (alpha < -1.0) {
+                for (int k = 0; k < size; k++) {
+                    double step = first[k] - current[k];
+                    double curvature = second[k] - 2 * first[k] + current[k];
+                    accelerated[k] = current[k] - 2 * alpha * step + alpha * alpha * curvature;
+                }
+                accelerated[numItems] = Math.max(MIN_STANDARD_DEVIATION, accelerated[numItems]);
+                if (update(accelerated, next) >= logLikelihood) {
+                    accepted = next;
+                }
+            }
+
+            maxChange = 0;
+            for (int k = 0; k < size; k++) {
+                maxChange = Math.max(maxChange, Math.abs(accepted[k] - current[k]));
+            }
+            System.arraycopy(accepted, 0, current, 0, size);
+            iteration++;
+        }
+
+        double[] posteriorMeans = new double[numItems + 1];
+        double[] posteriorDeviations = new double[numItems + 1];
+        placeNodes(current[numItems]);
+        expectation(current, posteriorMeans, posteriorDeviations);
+        double shift = 0;
+        for (int i = 0; i < numItems; i++) {
+            shift += current[i];
+        }
+        shift /= numItems;
+        for (int score = 0; score <= numItems; score++) {
+            posteriorMeans[score] -= shift;
+        }
+        for (int u = 0; u < numUnits; u++) {
+            abilities[u] = posteriorMeans[scores[u]];
+        }
+        for (int i = 0; i < numItems; i++) {
+            difficulties[i] = current[i] - shift;
+        }
+        population = new RaschModel.Population(-shift, current[numItems] * current[numItems]);
+        scoreTable = new ScoreTable(PersonScorer.Estimator.EAP, posteriorMeans, posteriorDeviations);
+
+        if (converged) {
+            System.out.println("MML converged after " + iteration + " iterations (max residual " + maxResidual + ").");
+        } else {
+            System.out.println("MML stopped after " + iteration + " iterations (max residual " + maxResidual + ").");
+        }
+        return new RaschModel.Convergence(iteration, converged, maxChange, maxResidual,
+            Arrays.copyOf(residualHistory, iteration + 1));
+    }
+
+    private double update(double[] parameters, double[] updated) {
+        int numItems = targets.length;
+        int points = nodes.length;
+        placeNodes(parameters[numItems]);
+        double logLikelihood = expectation(parameters, null, null);
+
+        lastResidual = 0;
+        for (int i = 0; i < numItems; i++) {
+            double expected = 0;
+            for (int q = 0; q < points; q++) {
+                expected += nodeCounts[q] * ProbabilityKernel.probability(nodes[q], parameters[i]);
+            }
+            lastResidual = Math.max(lastResidual, Math.abs(targets[i] - expected));
+        }
+
+        maximization(parameters, updated);
+        double variance = 0;
+        for (int q = 0; q < points; q++) {
+            variance += nodeCounts[q] * nodes[q] * nodes[q];
+        }
+        updated[numItems] = Math.max(MIN_STANDARD_DEVIATION, Math.sqrt(variance / totalWeight));
+        return logLikelihood;
+    }
+
+    private void placeNodes(double deviation) {
+        double scale = Math.sqrt(2.0) * deviation;
+        for (int q = 0; q < nodes.length; q++) {
+            nodes[q] = scale * standardNodes[q];
+            logPrior[q] = Math.log(standardWeights[q] / Math.sqrt(Math.PI));
+        }
+    }
+
+    private double expectation(double[] parameters, double[] posteriorMeans, double[] posteriorDeviations) {
+        int numItems = targets.length;
+        int points = nodes.length;
+        int numScores = scoreCounts.length;
+        double[] logNormalizers = new double[points];
+        executor.forEachRange(points, (from, to) -> {
+            for (int q = from; q < to; q++) {
+                double total = 0;
+                for (int i = 0; i < numItems; i++) {
+                    total += softplus(nodes[q] - parameters[i]);
+                }
+                logNormalizers[q] = total;
+            }
+        });
+
+        int blocks = executor.blockCount(numScores);
+        double[][] countPartials = new double[blocks][points];
+        double[] likelihoodPartials = new double[blocks];
+        executor.forEachBlock(numScores, blocks, (block, from, to) -> {
+            double[] counts = countPartials[block];
+            double[] posterior = new double[points];
+            for (int score = from; score < to; score++) {
+                double count = scoreCounts[score];
+                if (count == 0 && posteriorMeans == null) continue;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int q = 0; q < points; q++) {
+                    posterior[q] = logPrior[q] + score * nodes[q] - logNormalizers[q];
+                    max = Math.max(max, posterior[q]);
+                }
+                double total = 0;
+                double weightedNodes = 0;
+                double weightedSquares = 0;
+                for (int q = 0; q < points; q++) {
+                    posterior[q] = Math.exp(posterior[q] - max);
+                    total += posterior[q];
+                    weightedNodes += posterior[q] * nodes[q];
+                    weightedSquares += posterior[q] * nodes[q] * nodes[q];
+                }
+                if (posteriorMeans != null) {
+                    double posteriorMean = weightedNodes / total;
+                    posteriorMeans[score] = posteriorMean;
+                    posteriorDeviations[score] = Math.sqrt(Math.max(0, weightedSquares / total - posteriorMean * posteriorMean));
+                }
+                if (count == 0) continue;
+                double scale = count / total;
+                for (int q = 0; q < points; q++) {
+                    counts[q] += scale * posterior[q];
+                }
+                likelihoodPartials[block] += count * (max + Math.log(total));
+            }
+        });
+
+        Arrays.fill(nodeCounts, 0);
+        double logLikelihood = 0;
+        for (int block = 0; block < blocks; block++) {
+            for (int q = 0; q < points; q++) {
+                nodeCounts[q] += countPartials[block][q];
+            }
+            logLikelihood += likelihoodPartials[block];
+        }
+        for (int i = 0; i < numItems; i++) {
+            logLikelihood -= targets[i] * parameters[i];
+        }
+        return logLikelihood;
+    }
+
+    private void maximization(double[] parameters, double[] updated) {
+        executor.forEachRange(targets.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double difficulty = parameters[i];
+                for (int iteration = 0; iteration < MAX_ITEM_ITERATIONS; iteration++) {
+                    double expected = 0;
+                    double information = 0;
+                    for (int q = 0; q < nodes.length; q++) {
+                        double prob = ProbabilityKernel.probability(nodes[q], difficulty);
+                        expected += nodeCounts[q] * prob;
+                        information += nodeCounts[q] * prob * (1.0 - prob);
+                    }
+                    double step = (expected - targets[i]) / Math.max(information, ProbabilityKernel.MIN_INFORMATION);
+                    step = Math.max(Math.min(step, 1.0), -1.0);
+                    difficulty += step;
+                    if (Math.abs(step) < ITEM_TOLERANCE) {
+                        break;
+                    }
+                }
+                updated[i] = difficulty;
+            }
+        });
+    }
+
+    private static double softplus(double value) {
+        return value > 0 ? value + Math.log1p(Math.exp(-value)) : Math.log1p(Math.exp(value));
+    }
+
+    static void gaussHermite(double[] nodes, double[] weights) {
+        int points = nodes.length;
+        int half = (points + 1) / 2;
+        double root = 0;
+        for (int k = 0; k < half; k++) {
+            if (k == 0) {
+                root = Math.sqrt(2.0 * points + 1) - 1.85575 * Math.pow(2.0 * points + 1, -1.0 / 6.0);
+            } else if (k == 1) {
+                root -= 1.14 * Math.pow(points, 0.426) / root;
+            } else if (k == 2) {
+                root = 1.86 * root - 0.86 * nodes[0];
+            } else if (k == 3) {
+                root = 1.91 * root - 0.91 * nodes[1];
+            } else {
+                root = 2.0 * root - nodes[k - 2];
+            }
+
+            double derivative = 0;
+            for (int iteration = 0; iteration < MAX_ROOT_ITERATIONS; iteration++) {
+                double current = Math.pow(Math.PI, -0.25);
+                double previous = 0;
+                for (int j = 1; j <= points; j++) {
+                    double older = previous;
+                    previous = current;
+                    current = root * Math.sqrt(2.0 / j) * previous - Math.sqrt((j - 1.0) / j) * older;
+                }
+                derivative = Math.sqrt(2.0 * points) * previous;
+                double step = current / derivative;
+                root -= step;
+                if (Math.abs(step) <= ROOT_TOLERANCE) {
+                    break;
+                }
+            }
+            nodes[k] = root;
+            nodes[points - 1 - k] = -root;
+            weights[k] = 2.0 / (derivative * derivative);
+            weights[points - 1 - k] = weights[k];
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package miroshka.rasch.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class NewtonSolver {
+    private static final double MAX_STEP = 4.0;
+    private static final double ARMIJO_FACTOR = 1e-4;
+    private static final int MAX_HALVINGS = 12;
+    static final int MAX_ITEMS = 256;
+    static final int MAX_SPARSE_ITEMS = 64;
+
+    private final ProbabilityKernel kernel;
+    private final int maxIterations;
+    private final double parameterTolerance;
+    private final double residualTolerance;
+
+    NewtonSolver(ProbabilityKernel kernel, EstimationSettings settings) {
+        this.kernel = kernel;
+        this.maxIterations = settings.getMaxIterations();
+        this.parameterTolerance = settings.getParameterTolerance();
+        this.residualTolerance = settings.getResidualTolerance();
+    }
+
+    static int itemLimit(ObservedCells cells) {
+        return cells != null && cells.isSparse() ? MAX_SPARSE_ITEMS : MAX_ITEMS;
+    }
+
+    RaschModel.Convergence solve(double[] abilities, int[] scores, int[] weights,
+                                 double[] difficulties, int[] itemScores) {
+        return solve(abilities, scores, weights, difficulties, itemScores, null);
+    }
+
+    RaschModel.Convergence solve(double[] abilities, int[] scores, int[] weights,
+                                 double[] difficulties, int[] itemScores, ObservedCells cells) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+
+        ActiveSet active = ActiveSet.prune(scores, weights, itemScores, cells);
+        if (active.numItems < 2 || active.numUnits == 0) {
+            return null;
+        }
+
+        int[] unitOf = new int[numUnits];
+        List<Map<Long, Integer>> unitIndex = new ArrayList<>();
+        for (int score = 0; score <= numItems; score++) {
+            unitIndex.add(new HashMap<>());
+        }
+        double[] unitAbilities = new double[active.numUnits];
+        int[] unitWeights = new int[active.numUnits];
+        int[] unitScores = new int[active.numUnits];
+        int numMerged = 0;
+        for (int u = 0; u < numUnits; u++) {
+            if (!active.units[u]) {
+                unitOf[u] = -1;
+                continue;
+            }
+            Map<Long, Integer> sameScore = unitIndex.get(active.unitScores[u]);
+            Integer merged = cells == null ? sameScore.get(Double.doubleToLongBits(abilities[u])) : null;
+            if (merged == null) {
+                merged = numMerged++;
+                if (cells == null) {
+                    sameScore.put(Double.doubleToLongBits(abilities[u]), merged);
+                }
+                unitAbilities[merged] = abilities[u];
+                unitScores[merged] = active.unitScores[u];
+            }
+            unitWeights[merged] += weights != null ? weights[u] : 1;
+            unitOf[u] = merged;
+        }
+        unitAbilities = Arrays.copyOf(unitAbilities, numMerged);
+        unitWeights = Arrays.copyOf(unitWeights, numMerged);
+        unitScores = Arrays.copyOf(unitScores, numMerged);
+
+        double[] itemDifficulties = new double[active.numItems];
+        int[] activeItemScores = new int[active.numItems];
+        for (int k = 0, i = 0; i < numItems; i++) {
+            if (active.items[i]) {
+                itemDifficulties[k] = difficulties[i];
+                activeItemScores[k] = active.itemScores[i];
+                k++;
+            }
+        }
+        ActiveSet.center(unitAbilities, itemDifficulties);
+
+        ObservedCells activeCells = cells != null ? cells.select(active.units, active.items) : null;
+        RaschModel.Convergence convergence = iterate(unitAbilities, unitWeights, unitScores, itemDifficulties,
+            activeItemScores, activeCells);
+
+        for (int u = 0; u < numUnits; u++) {
+            if (unitOf[u] >= 0) {
+                abilities[u] = unitAbilities[unitOf[u]];
+            }
+        }
+        for (int k = 0, i = 0; i < numItems; i++) {
+            if (active.items[i]) {
+                difficulties[i] = itemDifficulties[k++];
+            }
+        }
+
+        active.completeExtremes(abilities, scores, weights, difficulties, unitAbilities, unitWeights);
+
+        return convergence;
+    }
+
+    private RaschModel.Convergence iterate(double[] abilities, int[] weights, int[] scores,
+                                           double[] difficulties, int[] itemScores, ObservedCells cells) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+        ProbabilityKernel.NewtonSystem system = new ProbabilityKernel.NewtonSystem(numUnits, numItems);
+        ProbabilityKernel.NewtonSystem trialSystem = new ProbabilityKernel.NewtonSystem(numUnits, numItems);
+        double[] abilityStep = new double[numUnits];
+        double[] difficultyStep = new double[numItems];
+        double[] trialAbilities = new double[numUnits];
+        double[] trialDifficulties = new double[numItems];
+        double[] reduced = new double[ProbabilityKernel.NewtonSystem.couplingSize(numItems - 1)];
+        double[] residualHistory = new double[maxIterations + 1];
+
+        kernel.accumulateNewtonSystem(abilities, weights, scores, difficulties, itemScores, cells, system);
+        double maxChange = Double.POSITIVE_INFINITY;
+        double maxResidual;
+        RaschModel.Convergence.Status status = RaschModel.Convergence.Status.ITERATION_LIMIT;
+        int iteration = 0;
+
+        while (true) {
+            maxResidual = 0;
+            for (int u = 0; u < numUnits; u++) {
+                maxResidual = Math.max(maxResidual, Math.abs(scores[u] - system.unitExpected[u]));
+            }
+            for (int i = 0; i < numItems; i++) {
+                maxResidual = Math.max(maxResidual, Math.abs(itemScores[i] - system.itemExpected[i]));
+            }
+            residualHistory[iteration] = maxResidual;
+
+            if (maxChange < parameterTolerance && maxResidual < residualTolerance) {
+                status = RaschModel.Convergence.Status.CONVERGED;
+                break;
+            }
+            if (iteration == maxIterations) {
+                break;
+            }
+
+            double slope = computeStep(system, abilities, weights, scores, difficulties, itemScores, cells,
+                reduced, abilityStep, difficultyStep);
+
+            double alpha = 1.0;
+            boolean accepted = false;
+            for (int halving = 0; halving <= MAX_HALVINGS; halving++) {
+                for (int u = 0; u < numUnits; u++) {
+                    trialAbilities[u] = abilities[u] + alpha * abilityStep[u];
+                }
+                for (int i = 0; i < numItems; i++) {
+                    trialDifficulties[i] = difficulties[i] + alpha * difficultyStep[i];
+                }
+                ActiveSet.center(trialAbilities, trialDifficulties);
+                kernel.accumulateNewtonSystem(trialAbilities, weights, scores, trialDifficulties, itemScores, cells,
+                    trialSystem);
+                if (trialSystem.logLikelihood >= system.logLikelihood + ARMIJO_FACTOR * alpha * slope) {
+                    accepted = true;
+                    break;
+                }
+                alpha *= 0.5;
+            }
+            if (!accepted) {
+                if (iteration == 0) {
+                    maxChange = 0;
+                }
+                status = RaschModel.Convergence.Status.LINE_SEARCH_FAILED;
+                break;
+            }
+
+            maxChange = 0;
+            for (int u = 0; u < numUnits; u++) {
+                maxChange = Math.max(maxChange, Math.abs(trialAbilities[u] - abilities[u]));
+            }
+            for (int i = 0; i < numItems; i++) {
+                maxChange = Math.max(maxChange, Math.abs(trialDifficulties[i] - difficulties[i]));
+            }
+
+            System.arraycopy(trialAbilities, 0, abilities, 0, numUnits);
+            System.arraycopy(trialDifficulties, 0, difficulties, 0, numItems);
+            ProbabilityKernel.NewtonSystem swap = system;
+            system = trialSystem;
+            trialSystem = swap;
+            iteration++;
+        }
+
+        if (status == RaschModel.Convergence.Status.CONVERGED) {
+            System.out.println("Newton solver converged after " + iteration + " iterations (max residual " + maxResidual + ").");
+        } else if (status == RaschModel.Convergence.Status.LINE_SEARCH_FAILED) {
+            System.out.println("Newton solver stopped after " + iteration + " iterations: line search found no improving step (max residual " + maxResidual + ").");
+        } else {
+            System.out.println("Newton solver stopped after " + iteration + " iterations (max residual " + maxResidual + ").");
+        }
+        return new RaschModel.Convergence(iteration, status, maxChange, maxResidual,
+            Arrays.copyOf(residualHistory, iteration + 1));
+    }
+
+    private double computeStep(ProbabilityKernel.NewtonSystem system, double[] abilities, int[] weights, int[] scores,
+                               double[] difficulties, int[] itemScores, ObservedCells cells, double[] reduced,
+                               double[] abilityStep, double[] difficultyStep) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+        int size = numItems - 1;
+
+        for (int i = 0; i < size; i++) {
+            for (int k = 0; k <= i; k++) {
+                double value = -system.coupling[i * numItems + k];
+                if (i == k) {
+                    value += system.itemInformation[i];
+                }
+                reduced[i * size + k] = value;
+            }
+            difficultyStep[i] = system.itemExpected[i] - itemScores[i] + system.itemCorrection[i];
+        }
+        difficultyStep[size] = 0;
+
+        if (choleskySolve(reduced, size, difficultyStep)) {
+            kernel.accumulateInformationProducts(abilities, difficulties, cells, difficultyStep, abilityStep);
+            for (int u = 0; u < numUnits; u++) {
+                double information = Math.max(system.unitInformation[u], ProbabilityKernel.MIN_INFORMATION);
+                abilityStep[u] = (scores[u] - system.unitExpected[u] + abilityStep[u]) / information;
+            }
+        } else {
+            for (int i = 0; i < numItems; i++) {
+                double information = Math.max(system.itemInformation[i], ProbabilityKernel.MIN_INFORMATION);
+                difficultyStep[i] = (system.itemExpected[i] - itemScores[i]) / information;
+            }
+            for (int u = 0; u < numUnits; u++) {
+                double information = Math.max(system.unitInformation[u], ProbabilityKernel.MIN_INFORMATION);
+                abilityStep[u] = (scores[u] - system.unitExpected[u]) / information;
+            }
+        }
+
+        double largest = 0;
+        for (double step : abilityStep) {
+            largest = Math.max(largest, Math.abs(step));
+        }
+        for (double step : difficultyStep) {
+            largest = Math.max(largest, Math.abs(step));
+        }
+        double scale = largest > MAX_STEP ? MAX_STEP / largest : 1.0;
+
+        double slope = 0;
+        for (int u = 0; u < numUnits; u++) {
+            abilityStep[u] *= scale;
+            slope += weights[u] * (scores[u] - system.unitExpected[u]) * abilityStep[u];
+        }
+        for (int i = 0; i < numItems; i++) {
+            difficultyStep[i] *= scale;
+            slope += (system.itemExpected[i] - itemScores[i]) * difficultyStep[i];
+        }
+        return slope;
+    }
+
+    static boolean choleskySolve(double[] matrix, int size, double[] rhs) {
+        for (int j = 0; j < size; j++) {
+            double diagonal = matrix[j * size + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= matrix[j * size + k] * matrix[j * size + k];
+            }
+            if (!(diagonal > ProbabilityKernel.MIN_INFORMATION)) {
+                return false;
+            }
+            diagonal = Math.sqrt(diagonal);
+            matrix[j * size + j] = diagonal;
+            for (int i = j + 1; i < size; i++) {
+                double value = matrix[i * size + j];
+                for (int k = 0; k < j; k++) {
+                    value -= matrix[i * size + k] * matrix[j * size + k];
+                }
+                matrix[i * size + j] = value / diagonal;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            double value = rhs[i];
+            for (int k = 0; k < i; k++) {
+                value -= matrix[i * size + k] * rhs[k];
+            }
+            rhs[i] = value / matrix[i * size + i];
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            double value = rhs[i];
+            for (int k = i + 1; k < size; k++) {
+                value -= matrix[k * size + i] * rhs[k];
+            }
+            rhs[i] = value / matrix[i * size + i];
+        }
+        return true;
+    }
+}
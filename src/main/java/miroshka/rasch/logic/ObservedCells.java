@@ -0,0 +1,230 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class ObservedCells {
+    static final double SPARSE_DENSITY = 0.5;
+
+    final int numUnits;
+    final int numItems;
+    final int wordsPerRow;
+    final long[] mask;
+    final int[] rowStart;
+    final int[] items;
+    private final int[] counts;
+    private int[] columnStart;
+    private int[] columnUnits;
+
+    private ObservedCells(int numUnits, int numItems, long[] mask, int[] rowStart, int[] items, int[] counts) {
+        this.numUnits = numUnits;
+        this.numItems = numItems;
+        this.wordsPerRow = ResponseMatrix.wordsPerRow(numItems);
+        this.mask = mask;
+        this.rowStart = rowStart;
+        this.items = items;
+        this.counts = counts;
+    }
+
+    static ObservedCells of(ResponseMatrix data, int[] rows) {
+        if (!data.hasMissing()) {
+            return null;
+        }
+        int numUnits = rows != null ? rows.length : data.getNumPersons();
+        int numItems = data.getNumItems();
+        int wordsPerRow = data.getWordsPerRow();
+        int[] counts = new int[numUnits];
+        long total = 0;
+        for (int u = 0; u < numUnits; u++) {
+            int row = rows != null ? rows[u] : u;
+            for (int w = 0; w < wordsPerRow; w++) {
+                counts[u] += Long.bitCount(data.observedWord(row, w));
+            }
+            total += counts[u];
+        }
+
+        boolean sparse = isSparse(numUnits, numItems, total);
+        long[] mask = sparse ? null : new long[numUnits * wordsPerRow];
+        int[] rowStart = sparse ? new int[numUnits + 1] : null;
+        int[] items = sparse ? new int[(int) total] : null;
+        int next = 0;
+        for (int u = 0; u < numUnits; u++) {
+            int row = rows != null ? rows[u] : u;
+            if (!sparse) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    mask[u * wordsPerRow + w] = data.observedWord(row, w);
+                }
+                continue;
+            }
+            rowStart[u] = next;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long bits = data.observedWord(row, w);
+                while (bits != 0) {
+                    items[next++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        if (sparse) {
+            rowStart[numUnits] = next;
+        }
+        return new ObservedCells(numUnits, numItems, mask, rowStart, items, counts);
+    }
+
+    private static boolean isSparse(int numUnits, int numItems, long total) {
+        return total < SPARSE_DENSITY * numUnits * numItems;
+    }
+
+    boolean isSparse() {
+        return items != null;
+    }
+
+    int count(int unit) {
+        return counts[unit];
+    }
+
+    int cellCount() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return (int) total;
+    }
+
+    double density() {
+        return numUnits == 0 || numItems == 0 ? 0 : (double) cellCount() / ((long) numUnits * numItems);
+    }
+
+    boolean isObserved(int unit, int item) {
+        if (mask != null) {
+            return (mask[unit * wordsPerRow + (item >>> 6)] >>> item & 1L) != 0;
+        }
+        return Arrays.binarySearch(items, rowStart[unit], rowStart[unit + 1], item) >= 0;
+    }
+
+    int itemsOf(int unit, int[] buffer) {
+        if (mask == null) {
+            int count = rowStart[unit + 1] - rowStart[unit];
+            System.arraycopy(items, rowStart[unit], buffer, 0, count);
+            return count;
+        }
+        int count = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long bits = mask[unit * wordsPerRow + w];
+            while (bits != 0) {
+                buffer[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return count;
+    }
+
+    int unitsOf(int item, int[] buffer) {
+        if (mask == null) {
+            indexColumns();
+            int count = columnStart[item + 1] - columnStart[item];
+            System.arraycopy(columnUnits, columnStart[item], buffer, 0, count);
+            return count;
+        }
+        int count = 0;
+        int word = item >>> 6;
+        for (int u = 0; u < numUnits; u++) {
+            if ((mask[u * wordsPerRow + word] >>> item & 1L) != 0) {
+                buffer[count++] = u;
+            }
+        }
+        return count;
+    }
+
+    private synchronized void indexColumns() {
+        if (columnStart != null) {
+            return;
+        }
+        int[] start = new int[numItems + 1];
+        int[] units = new int[items.length];
+        for (int item : items) {
+            start[item + 1]++;
+        }
+        for (int i = 0; i < numItems; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] next = Arrays.copyOf(start, numItems);
+        for (int u = 0; u < numUnits; u++) {
+            for (int k = rowStart[u]; k < rowStart[u + 1]; k++) {
+                units[next[items[k]]++] = u;
+            }
+        }
+        columnUnits = units;
+        columnStart = start;
+    }
+
+    double[] itemWeights(int[] weights) {
+        double[] totals = new double[numItems];
+        for (int u = 0; u < numUnits; u++) {
+            double weight = weights != null ? weights[u] : 1;
+            if (mask != null) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    long bits = mask[u * wordsPerRow + w];
+                    while (bits != 0) {
+                        totals[(w << 6) + Long.numberOfTrailingZeros(bits)] += weight;
+                        bits &= bits - 1;
+                    }
+                }
+            } else {
+                for (int k = rowStart[u]; k < rowStart[u + 1]; k++) {
+                    totals[items[k]] += weight;
+                }
+            }
+        }
+        return totals;
+    }
+
+    ObservedCells select(boolean[] units, boolean[] activeItems) {
+        int[] itemIndex = new int[numItems];
+        int selectedItems = 0;
+        for (int i = 0; i < numItems; i++) {
+            itemIndex[i] = activeItems[i] ? selectedItems++ : -1;
+        }
+        int selectedUnits = 0;
+        for (boolean active : units) {
+            if (active) selectedUnits++;
+        }
+
+        int[] buffer = new int[numItems];
+        int[] selectedCounts = new int[selectedUnits];
+        long total = 0;
+        for (int u = 0, v = 0; u < numUnits; u++) {
+            if (!units[u]) continue;
+            int count = itemsOf(u, buffer);
+            for (int k = 0; k < count; k++) {
+                if (itemIndex[buffer[k]] >= 0) selectedCounts[v]++;
+            }
+            total += selectedCounts[v++];
+        }
+
+        boolean sparse = isSparse(selectedUnits, selectedItems, total);
+        int selectedWords = ResponseMatrix.wordsPerRow(selectedItems);
+        long[] selectedMask = sparse ? null : new long[selectedUnits * selectedWords];
+        int[] selectedStart = sparse ? new int[selectedUnits + 1] : null;
+        int[] selected = sparse ? new int[(int) total] : null;
+        int next = 0;
+        for (int u = 0, v = 0; u < numUnits; u++) {
+            if (!units[u]) continue;
+            if (sparse) selectedStart[v] = next;
+            int count = itemsOf(u, buffer);
+            for (int k = 0; k < count; k++) {
+                int item = itemIndex[buffer[k]];
+                if (item < 0) continue;
+                if (sparse) {
+                    selected[next++] = item;
+                } else {
+                    selectedMask[v * selectedWords + (item >>> 6)] |= 1L << item;
+                }
+            }
+            v++;
+        }
+        if (sparse) {
+            selectedStart[selectedUnits] = next;
+        }
+        return new ObservedCells(selectedUnits, selectedItems, selectedMask, selectedStart, selected, selectedCounts);
+    }
+}
@@ -0,0 +1,100 @@
+package miroshka.rasch.logic;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+final class ParallelExecutor {
+
+    private static final int MIN_GRAIN = 64;
+    private static final int TASKS_PER_WORKER = 4;
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    ParallelExecutor(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    boolean isParallel() {
+        return pool != null;
+    }
+
+    void forEachRange(int size, RangeAction action) {
+        if (size <= 0) {
+            return;
+        }
+        if (pool == null || size <= MIN_GRAIN) {
+            action.apply(0, size);
+            return;
+        }
+        int grain = Math.max(MIN_GRAIN, size / (parallelism * TASKS_PER_WORKER));
+        pool.invoke(new RangeTask(action, 0, size, grain));
+    }
+
+    int blockCount(int size) {
+        if (pool == null || size <= MIN_GRAIN) {
+            return 1;
+        }
+        return Math.min(parallelism * TASKS_PER_WORKER, (size + MIN_GRAIN - 1) / MIN_GRAIN);
+    }
+
+    void forEachBlock(int size, int blocks, BlockAction action) {
+        if (size <= 0) {
+            return;
+        }
+        if (pool == null || blocks <= 1) {
+            for (int block = 0; block < blocks; block++) {
+                action.apply(block, blockStart(size, blocks, block), blockStart(size, blocks, block + 1));
+            }
+            return;
+        }
+        pool.invoke(new RangeTask((from, to) -> {
+            for (int block = from; block < to; block++) {
+                action.apply(block, blockStart(size, blocks, block), blockStart(size, blocks, block + 1));
+            }
+        }, 0, blocks, 1));
+    }
+
+    private static int blockStart(int size, int blocks, int block) {
+        return (int) ((long) size * block / blocks);
+    }
+
+    @FunctionalInterface
+    interface RangeAction {
+        void apply(int from, int to);
+    }
+
+    @FunctionalInterface
+    interface BlockAction {
+        void apply(int block, int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(RangeAction action, int from, int to, int grain) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                action.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(action, from, mid, grain), new RangeTask(action, mid, to, grain));
+        }
+    }
+}
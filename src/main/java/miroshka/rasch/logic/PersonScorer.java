@@ -0,0 +1,221 @@
+package miroshka.rasch.logic;
+
+public final class PersonScorer {
+    private static final int MAX_ITERATIONS = 100;
+    private static final double TOLERANCE = 1e-8;
+
+    public enum Estimator {
+        MLE,
+        WLE,
+        EAP
+    }
+
+    private final double[] difficulties;
+    private final Estimator estimator;
+    private final ScoreTable table;
+
+    public PersonScorer(double[] difficulties) {
+        this(difficulties, Estimator.WLE);
+    }
+
+    public PersonScorer(double[] difficulties, Estimator estimator) {
+        validate(difficulties);
+        this.difficulties = difficulties.clone();
+        this.estimator = estimator != null ? estimator : Estimator.WLE;
+        this.table = ScoreTable.forDifficulties(this.difficulties, this.estimator);
+    }
+
+    static void validate(double[] difficulties) {
+        if (difficulties == null || difficulties.length == 0) {
+            throw new IllegalArgumentException("Трудности заданий не заданы");
+        }
+        for (double difficulty : difficulties) {
+            if (!Double.isFinite(difficulty)) {
+                throw new IllegalArgumentException("Трудности заданий должны быть конечными числами");
+            }
+        }
+    }
+
+    static ScoreTable tabulate(double[] difficulties, Estimator estimator) {
+        int numItems = difficulties.length;
+        double[] abilities = new double[numItems + 1];
+        double[] standardErrors = new double[numItems + 1];
+        Score score = new Score();
+        for (int raw = 0; raw <= numItems; raw++) {
+            estimate(difficulties, estimator, raw, numItems, null, null, 0, score);
+            abilities[raw] = score.ability;
+            standardErrors[raw] = score.standardError;
+        }
+        return new ScoreTable(estimator, abilities, standardErrors);
+    }
+
+    public int getNumItems() {
+        return difficulties.length;
+    }
+
+    public Estimator getEstimator() {
+        return estimator;
+    }
+
+    public double[] getDifficulties() {
+        return difficulties.clone();
+    }
+
+    public ScoreTable getScoreTable() {
+        return table;
+    }
+
+    public double abilityForScore(int rawScore) {
+        return table.getAbility(rawScore);
+    }
+
+    public double standardErrorForScore(int rawScore) {
+        return table.getStandardError(rawScore);
+    }
+
+    public Score score(boolean[] responses) {
+        return score(responses, null, new Score());
+    }
+
+    public Score score(boolean[] responses, boolean[] observed, Score result) {
+        if (responses == null || responses.length != difficulties.length
+                || (observed != null && observed.length != difficulties.length)) {
+            throw new IllegalArgumentException("Количество ответов не совпадает с количеством заданий");
+        }
+        return score(responses, observed, null, 0, result);
+    }
+
+    public Score score(ResponseMatrix data, int person, Score result) {
+        if (data.getNumItems() != difficulties.length) {
+            throw new IllegalArgumentException("Количество ответов не совпадает с количеством заданий");
+        }
+        if (person < 0 || person >= data.getNumPersons()) {
+            throw new IndexOutOfBoundsException("Номер студента вне диапазона: " + person);
+        }
+        return score(null, null, data, person, result);
+    }
+
+    private Score score(boolean[] responses, boolean[] observed, ResponseMatrix data, int person, Score result) {
+        int numItems = difficulties.length;
+        int rawScore = 0;
+        int maximum = 0;
+        for (int i = 0; i < numItems; i++) {
+            if (isObserved(observed, data, person, i)) {
+                maximum++;
+                if (isCorrect(responses, data, person, i)) rawScore++;
+            }
+        }
+
+        if (maximum == numItems) {
+            result.ability = table.getAbility(rawScore);
+            result.standardError = table.getStandardError(rawScore);
+        } else if (maximum > 0) {
+            estimate(difficulties, estimator, rawScore, maximum, observed, data, person, result);
+        } else {
+            result.ability = Double.NaN;
+            result.standardError = Double.NaN;
+        }
+        result.rawScore = rawScore;
+        result.maximumScore = maximum;
+
+        double sumResidualSq = 0;
+        double sumStdResidualSq = 0;
+        double sumVariance = 0;
+        double sumVarianceSq = 0;
+        int count = 0;
+        for (int i = 0; i < numItems && maximum > 0; i++) {
+            if (!isObserved(observed, data, person, i)) continue;
+            double prob = ProbabilityKernel.probability(result.ability, difficulties[i]);
+            double variance = prob * (1.0 - prob);
+            if (variance < ProbabilityKernel.MIN_VARIANCE) continue;
+
+            double residual = (isCorrect(responses, data, person, i) ? 1 : 0) - prob;
+            double residualSq = residual * residual;
+            sumResidualSq += residualSq;
+            sumStdResidualSq += residualSq / variance;
+            sumVariance += variance;
+            sumVarianceSq += variance * variance;
+            count++;
+        }
+        if (count == 0) {
+            result.infitMNSQ = 0;
+            result.outfitMNSQ = 0;
+            result.infitZSTD = 0;
+            result.outfitZSTD = 0;
+        } else {
+            result.outfitMNSQ = sumStdResidualSq / count;
+            result.infitMNSQ = sumResidualSq / sumVariance;
+            result.outfitZSTD = RaschModel.outfitZSTD(result.outfitMNSQ, count);
+            result.infitZSTD = RaschModel.infitZSTD(result.infitMNSQ, sumVariance, sumVarianceSq);
+        }
+        return result;
+    }
+
+    private static void estimate(double[] difficulties, Estimator estimator, int rawScore, int maximum,
+                                 boolean[] observed, ResponseMatrix data, int person, Score result) {
+        double target = estimator == Estimator.MLE
+            ? Math.max(ActiveSet.EXTREME_ADJUSTMENT, Math.min(rawScore, maximum - ActiveSet.EXTREME_ADJUSTMENT))
+            : rawScore;
+        double ability = 0;
+        double information = 0;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double expected = 0;
+            double skewness = 0;
+            information = 0;
+            for (int i = 0; i < difficulties.length; i++) {
+                if (!isObserved(observed, data, person, i)) continue;
+                double prob = ProbabilityKernel.probability(ability, difficulties[i]);
+                double variance = prob * (1.0 - prob);
+                expected += prob;
+                information += variance;
+                skewness += variance * (1.0 - 2.0 * prob);
+            }
+            information = Math.max(information, ProbabilityKernel.MIN_INFORMATION);
+            double gap = target - expected;
+            if (estimator == Estimator.WLE) {
+                gap += skewness / (2.0 * information);
+            }
+            double step = Math.max(Math.min(gap / information, 1.0), -1.0);
+            ability += step;
+            if (Math.abs(step) < TOLERANCE) {
+                break;
+            }
+        }
+        result.ability = ability;
+        result.standardError = 1.0 / Math.sqrt(information);
+    }
+
+    private static boolean isObserved(boolean[] observed, ResponseMatrix data, int person, int item) {
+        return data != null ? data.isObserved(person, item) : observed == null || observed[item];
+    }
+
+    private static boolean isCorrect(boolean[] responses, ResponseMatrix data, int person, int item) {
+        return data != null ? data.isCorrect(person, item) : responses[item];
+    }
+
+    public static final class Score {
+        private double ability;
+        private double standardError;
+        private int rawScore;
+        private int maximumScore;
+        private double infitMNSQ;
+        private double outfitMNSQ;
+        private double infitZSTD;
+        private double outfitZSTD;
+
+        public double getAbility() { return ability; }
+        public double getStandardError() { return standardError; }
+        public int getRawScore() { return rawScore; }
+        public int getMaximumScore() { return maximumScore; }
+        public double getInfitMNSQ() { return infitMNSQ; }
+        public double getOutfitMNSQ() { return outfitMNSQ; }
+        public double getInfitZSTD() { return infitZSTD; }
+        public double getOutfitZSTD() { return outfitZSTD; }
+
+        @Override
+        public String toString() {
+            return String.format("Score{ability=%s, standardError=%s, rawScore=%d, maximumScore=%d, infitMNSQ=%s, outfitMNSQ=%s}",
+                ability, standardError, rawScore, maximumScore, infitMNSQ, outfitMNSQ);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class ProbabilityKernel {
+    static final double LOGIT_LIMIT = 30;
+    static final double MIN_VARIANCE = 1e-6;
+    static final double MIN_INFORMATION = 1e-10;
+    private static final int MAX_SCORE_ITERATIONS = 100;
+    private static final double SCORE_TOLERANCE = 1e-6;
+    private static final int TILE_BYTES = 256 * 1024;
+    private static final int TILE_UNITS = 32;
+    private static final long COUPLING_BUDGET = 64L << 20;
+
+    private final ParallelExecutor executor;
+    private final RowKernel rows;
+
+    ProbabilityKernel(ParallelExecutor executor) {
+        this(executor, new ScalarRowKernel(null));
+    }
+
+    ProbabilityKernel(ParallelExecutor executor, RowKernel rows) {
+        this.executor = executor;
+        this.rows = rows;
+    }
+
+    static double probability(double ability, double difficulty) {
+        double logit = Math.max(Math.min(ability - difficulty, LOGIT_LIMIT), -LOGIT_LIMIT);
+        return 1.0 / (1.0 + Math.exp(-logit));
+    }
+
+    static double abilityForScore(double target, double[] difficulties) {
+        double ability = 0;
+        for (int iteration = 0; iteration < MAX_SCORE_ITERATIONS; iteration++) {
+            double expected = 0;
+            double information = 0;
+            for (double difficulty : difficulties) {
+                double prob = probability(ability, difficulty);
+                expected += prob;
+                information += prob * (1.0 - prob);
+            }
+            double step = Math.max(Math.min((target - expected) / Math.max(information, MIN_INFORMATION), 1.0), -1.0);
+            ability += step;
+            if (Math.abs(step) < SCORE_TOLERANCE) {
+                break;
+            }
+        }
+        return ability;
+    }
+
+    static double difficultyForScore(double target, double[] abilities, int[] weights) {
+        double difficulty = 0;
+        for (int iteration = 0; iteration < MAX_SCORE_ITERATIONS; iteration++) {
+            double expected = 0;
+            double information = 0;
+            for (int u = 0; u < abilities.length; u++) {
+                double prob = probability(abilities[u], difficulty);
+                expected += weights[u] * prob;
+                information += weights[u] * prob * (1.0 - prob);
+            }
+            double step = Math.max(Math.min((expected - target) / Math.max(information, MIN_INFORMATION), 1.0), -1.0);
+            difficulty += step;
+            if (Math.abs(step) < SCORE_TOLERANCE) {
+                break;
+            }
+        }
+        return difficulty;
+    }
+
+    void accumulateExpectedScores(double[] abilities, int[] weights, double[] difficulties,
+                                  double[] unitExpected, double[] itemExpected) {
+        accumulateExpectedScores(abilities, weights, difficulties, null, unitExpected, itemExpected);
+    }
+
+    void accumulateExpectedScores(double[] abilities, int[] weights, double[] difficulties, ObservedCells cells,
+                                  double[] unitExpected, double[] itemExpected) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+        int blocks = executor.blockCount(numUnits);
+        double[][] itemPartials = new double[blocks][numItems];
+
+        executor.forEachBlock(numUnits, blocks, (block, from, to) -> {
+            double[] itemSums = itemPartials[block];
+            double[] probabilities = cells != null && cells.isSparse() ? new double[numItems] : null;
+            for (int u = from; u < to; u++) {
+                double ability = abilities[u];
+                double weight = weights != null ? weights[u] : 1;
+                if (cells == null) {
+                    unitExpected[u] = rows.expectedScore(ability, weight, difficulties, itemSums);
+                } else if (probabilities == null) {
+                    unitExpected[u] = rows.expectedScore(ability, weight, difficulties,
+                        cells.mask, u * cells.wordsPerRow, itemSums);
+                } else {
+                    int start = cells.rowStart[u];
+                    int end = cells.rowStart[u + 1];
+                    rows.probabilities(ability, difficulties, cells.items, start, end, probabilities);
+                    double sumProb = 0;
+                    for (int k = start; k < end; k++) {
+                        double prob = probabilities[k - start];
+                        sumProb += prob;
+                        itemSums[cells.items[k]] += weight * prob;
+                    }
+                    unitExpected[u] = sumProb;
+                }
+            }
+        });
+
+        mergePartials(itemPartials, itemExpected);
+    }
+
+    void accumulateNewtonSystem(double[] abilities, int[] weights, int[] scores,
+                                double[] difficulties, int[] itemScores, NewtonSystem system) {
+        accumulateNewtonSystem(abilities, weights, scores, difficulties, itemScores, null, system);
+    }
+
+    void accumulateNewtonSystem(double[] abilities, int[] weights, int[] scores, double[] difficulties,
+                                int[] itemScores, ObservedCells cells, NewtonSystem system) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+        int blocks = Math.min(executor.blockCount(numUnits), executor.getParallelism());
+        blocks = (int) Math.max(1, Math.min(blocks, COUPLING_BUDGET / NewtonSystem.couplingBytes(numItems)));
+        NewtonSystem[] partials = new NewtonSystem[blocks];
+        double[] blockLikelihood = new double[blocks];
+
+        int tileUnits = Math.max(1, Math.min(TILE_UNITS, TILE_BYTES / (2 * Double.BYTES * numItems)));
+        int tileRows = Math.max(1, TILE_BYTES / (Double.BYTES * numItems));
+
+        executor.forEachBlock(numUnits, blocks, (block, from, to) -> {
+            NewtonSystem partial = new NewtonSystem(0, numItems);
+            if (cells != null && cells.isSparse()) {
+                partials[block] = partial;
+                blockLikelihood[block] = accumulateSparseNewton(abilities, weights, scores, difficulties, cells,
+                    from, to, partial, system);
+                return;
+            }
+            long[] mask = cells != null ? cells.mask : null;
+            double[] probabilities = new double[numItems];
+            double[] variances = new double[tileUnits * numItems];
+            double[] factors = new double[tileUnits * numItems];
+            double[] coupling = partial.coupling;
+            double likelihood = 0;
+            for (int tileStart = from; tileStart < to; tileStart += tileUnits) {
+                int tileSize = Math.min(tileUnits, to - tileStart);
+                for (int t = 0; t < tileSize; t++) {
+                    int u = tileStart + t;
+                    int base = t * numItems;
+                    double ability = abilities[u];
+                    double weight = weights[u];
+                    double sumProb = 0;
+                    double sumVariance = 0;
+                    double partition = 0;
+                    rows.probabilities(ability, difficulties, probabilities);
+                    int maskOffset = u * (mask != null ? cells.wordsPerRow : 0);
+                    for (int i = 0; i < numItems; i++) {
+                        if (mask != null && (mask[maskOffset + (i >>> 6)] >>> i & 1L) == 0) {
+                            variances[base + i] = 0;
+                            continue;
+                        }
+                        double logit = ability - difficulties[i];
+                        double prob = probabilities[i];
+                        double variance = prob * (1.0 - prob);
+                        sumProb += prob;
+                        sumVariance += variance;
+                        partition += logit > 0 ? logit - Math.log(prob) : -Math.log1p(-prob);
+                        variances[base + i] = variance;
+                        partial.itemExpected[i] += weight * prob;
+                        partial.itemInformation[i] += weight * variance;
+                    }
+                    system.unitExpected[u] = sumProb;
+                    system.unitInformation[u] = sumVariance;
+                    likelihood += weight * (scores[u] * ability - partition);
+
+                    double information = Math.max(sumVariance, MIN_INFORMATION);
+                    double correction = (scores[u] - sumProb) / information;
+                    for (int i = 0; i < numItems; i++) {
+                        double factor = weight * variances[base + i];
+                        partial.itemCorrection[i] += factor * correction;
+                        factors[base + i] = factor / information;
+                    }
+                }
+
+                for (int rowStart = 0; rowStart < numItems; rowStart += tileRows) {
+                    int rowEnd = Math.min(numItems, rowStart + tileRows);
+                    int t = 0;
+                    for (; t + 4 <= tileSize; t += 4) {
+                        int base0 = t * numItems;
+                        int base1 = base0 + numItems;
+                        int base2 = base1 + numItems;
+                        int base3 = base2 + numItems;
+                        for (int i = rowStart; i < rowEnd; i++) {
+                            double factor0 = factors[base0 + i];
+                            double factor1 = factors[base1 + i];
+                            double factor2 = factors[base2 + i];
+                            double factor3 = factors[base3 + i];
+                            int row = i * numItems;
+                            for (int k = 0; k <= i; k++) {
+                                coupling[row + k] += factor0 * variances[base0 + k] + factor1 * variances[base1 + k]
+                                    + factor2 * variances[base2 + k] + factor3 * variances[base3 + k];
+                            }
+                        }
+                    }
+                    for (; t < tileSize; t++) {
+                        int base = t * numItems;
+                        for (int i = rowStart; i < rowEnd; i++) {
+                            double factor = factors[base + i];
+                            int row = i * numItems;
+                            for (int k = 0; k <= i; k++) {
+                                coupling[row + k] += factor * variances[base + k];
+                            }
+                        }
+                    }
+                }
+            }
+            partials[block] = partial;
+            blockLikelihood[block] = likelihood;
+        });
+
+        system.reset();
+        double likelihood = 0;
+        for (int block = 0; block < blocks; block++) {
+            system.add(partials[block]);
+            likelihood += blockLikelihood[block];
+        }
+        for (int i = 0; i < numItems; i++) {
+            likelihood -= itemScores[i] * difficulties[i];
+        }
+        system.logLikelihood = likelihood;
+    }
+
+    private double accumulateSparseNewton(double[] abilities, int[] weights, int[] scores, double[] difficulties,
+                                          ObservedCells cells, int from, int to, NewtonSystem partial,
+                                          NewtonSystem system) {
+        int numItems = difficulties.length;
+        double[] probabilities = new double[numItems];
+        double[] variances = new double[numItems];
+        double[] coupling = partial.coupling;
+        double likelihood = 0;
+        for (int u = from; u < to; u++) {
+            int start = cells.rowStart[u];
+            int count = cells.rowStart[u + 1] - start;
+            double ability = abilities[u];
+            double weight = weights[u];
+            double sumProb = 0;
+            double sumVariance = 0;
+            double partition = 0;
+            rows.probabilities(ability, difficulties, cells.items, start, start + count, probabilities);
+            for (int k = 0; k < count; k++) {
+                int i = cells.items[start + k];
+                double logit = ability - difficulties[i];
+                double prob = probabilities[k];
+                double variance = prob * (1.0 - prob);
+                sumProb += prob;
+                sumVariance += variance;
+                partition += logit > 0 ? logit - Math.log(prob) : -Math.log1p(-prob);
+                variances[k] = variance;
+                partial.itemExpected[i] += weight * prob;
+                partial.itemInformation[i] += weight * variance;
+            }
+            system.unitExpected[u] = sumProb;
+            system.unitInformation[u] = sumVariance;
+            likelihood += weight * (scores[u] * ability - partition);
+
+            double information = Math.max(sumVariance, MIN_INFORMATION);
+            double correction = (scores[u] - sumProb) / information;
+            for (int a = 0; a < count; a++) {
+                int i = cells.items[start + a];
+                double factor = weight * variances[a];
+                partial.itemCorrection[i] += factor * correction;
+                factor /= information;
+                int row = i * numItems;
+                for (int b = 0; b <= a; b++) {
+                    coupling[row + cells.items[start + b]] += factor * variances[b];
+                }
+            }
+        }
+        return likelihood;
+    }
+
+    void accumulateInformationProducts(double[] abilities, double[] difficulties, double[] difficultySteps,
+                                       double[] products) {
+        accumulateInformationProducts(abilities, difficulties, null, difficultySteps, products);
+    }
+
+    void accumulateInformationProducts(double[] abilities, double[] difficulties, ObservedCells cells,
+                                       double[] difficultySteps, double[] products) {
+        int numItems = difficulties.length;
+        executor.forEachRange(abilities.length, (from, to) -> {
+            double[] probabilities = new double[numItems];
+            for (int u = from; u < to; u++) {
+                double sum = 0;
+                if (cells != null && cells.isSparse()) {
+                    int start = cells.rowStart[u];
+                    int end = cells.rowStart[u + 1];
+                    rows.probabilities(abilities[u], difficulties, cells.items, start, end, probabilities);
+                    for (int k = start; k < end; k++) {
+                        double prob = probabilities[k - start];
+                        sum += prob * (1.0 - prob) * difficultySteps[cells.items[k]];
+                    }
+                } else {
+                    rows.probabilities(abilities[u], difficulties, probabilities);
+                    int maskOffset = cells != null ? u * cells.wordsPerRow : 0;
+                    for (int i = 0; i < numItems; i++) {
+                        if (cells != null && (cells.mask[maskOffset + (i >>> 6)] >>> i & 1L) == 0) continue;
+                        double prob = probabilities[i];
+                        sum += prob * (1.0 - prob) * difficultySteps[i];
+                    }
+                }
+                products[u] = sum;
+            }
+        });
+    }
+
+    private static void mergePartials(double[][] partials, double[] target) {
+        Arrays.fill(target, 0);
+        for (double[] sums : partials) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] += sums[i];
+            }
+        }
+    }
+
+    FitPass accumulateFit(ResponseMatrix data, double[] abilities, double[] difficulties) {
+        return accumulateFit(data, abilities, difficulties, null);
+    }
+
+    FitPass accumulateFit(ResponseMatrix data, double[] abilities, double[] difficulties, int[] weights) {
+        return accumulateFit(data, abilities, difficulties, weights, null);
+    }
+
+    FitPass accumulateFit(ResponseMatrix data, double[] abilities, double[] difficulties, int[] weights,
+                          ObservedCells cells) {
+        int numPersons = data.getNumPersons();
+        int numItems = data.getNumItems();
+        int blocks = executor.blockCount(numPersons);
+        FitSums personSums = new FitSums(numPersons);
+        FitSums[] itemPartials = new FitSums[blocks];
+        for (int block = 0; block < blocks; block++) {
+            itemPartials[block] = new FitSums(numItems);
+        }
+
+        executor.forEachBlock(numPersons, blocks, (block, from, to) -> {
+            FitSums itemSums = itemPartials[block];
+            double[] probabilities = new double[numItems];
+            for (int p = from; p < to; p++) {
+                int weight = weights != null ? weights[p] : 1;
+                if (cells != null && cells.isSparse()) {
+                    int start = cells.rowStart[p];
+                    int end = cells.rowStart[p + 1];
+                    rows.probabilities(abilities[p], difficulties, cells.items, start, end, probabilities);
+                    ScalarRowKernel.accumulateFit(probabilities, data, p, cells.items, start, end, weight,
+                        personSums, itemSums);
+                } else {
+                    rows.probabilities(abilities[p], difficulties, probabilities);
+                    rows.accumulateFit(probabilities, data, p, weight, personSums, itemSums);
+                }
+            }
+        });
+
+        if (blocks == 1) {
+            return new FitPass(personSums, itemPartials[0]);
+        }
+        FitSums itemSums = new FitSums(numItems);
+        executor.forEachRange(numItems, (from, to) -> {
+            for (FitSums partial : itemPartials) {
+                itemSums.add(partial, from, to);
+            }
+        });
+        return new FitPass(personSums, itemSums);
+    }
+
+    static final class FitSums {
+        final double[] sumResidualSq;
+        final double[] sumStdResidualSq;
+        final double[] sumVariance;
+        final double[] sumVarianceSq;
+        final int[] count;
+
+        FitSums(int size) {
+            this.sumResidualSq = new double[size];
+            this.sumStdResidualSq = new double[size];
+            this.sumVariance = new double[size];
+            this.sumVarianceSq = new double[size];
+            this.count = new int[size];
+        }
+
+        void add(int index, double residualSq, double stdResidualSq, double variance) {
+            sumResidualSq[index] += residualSq;
+            sumStdResidualSq[index] += stdResidualSq;
+            sumVariance[index] += variance;
+            sumVarianceSq[index] += variance * variance;
+            count[index]++;
+        }
+
+        void add(int index, double residualSq, double stdResidualSq, double variance, int weight) {
+            sumResidualSq[index] += weight * residualSq;
+            sumStdResidualSq[index] += weight * stdResidualSq;
+            sumVariance[index] += weight * variance;
+            sumVarianceSq[index] += weight * variance * variance;
+            count[index] += weight;
+        }
+
+        void add(FitSums other, int from, int to) {
+            for (int k = from; k < to; k++) {
+                sumResidualSq[k] += other.sumResidualSq[k];
+                sumStdResidualSq[k] += other.sumStdResidualSq[k];
+                sumVariance[k] += other.sumVariance[k];
+                sumVarianceSq[k] += other.sumVarianceSq[k];
+                count[k] += other.count[k];
+            }
+        }
+    }
+
+    static final class FitPass {
+        final FitSums persons;
+        final FitSums items;
+
+        FitPass(FitSums persons, FitSums items) {
+            this.persons = persons;
+            this.items = items;
+        }
+    }
+
+    static final class NewtonSystem {
+        final double[] unitExpected;
+        final double[] unitInformation;
+        final double[] itemExpected;
+        final double[] itemInformation;
+        final double[] itemCorrection;
+        final double[] coupling;
+        double logLikelihood;
+
+        NewtonSystem(int numUnits, int numItems) {
+            this.unitExpected = new double[numUnits];
+            this.unitInformation = new double[numUnits];
+            this.itemExpected = new double[numItems];
+            this.itemInformation = new double[numItems];
+            this.itemCorrection = new double[numItems];
+            this.coupling = new double[couplingSize(numItems)];
+        }
+
+        static int couplingSize(int numItems) {
+            long size = (long) numItems * numItems;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Слишком много заданий для метода Ньютона: " + numItems);
+            }
+            return (int) size;
+        }
+
+        static long couplingBytes(int numItems) {
+            return Math.max(1, (long) numItems * numItems * Double.BYTES);
+        }
+
+        void reset() {
+            Arrays.fill(itemExpected, 0);
+            Arrays.fill(itemInformation, 0);
+            Arrays.fill(itemCorrection, 0);
+            Arrays.fill(coupling, 0);
+            logLikelihood = 0;
+        }
+
+        void add(NewtonSystem other) {
+            for (int i = 0; i < itemExpected.length; i++) {
+                itemExpected[i] += other.itemExpected[i];
+                itemInformation[i] += other.itemInformation[i];
+                itemCorrection[i] += other.itemCorrection[i];
+            }
+            for (int k = 0; k < coupling.length; k++) {
+                coupling[k] += other.coupling[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package miroshka.rasch.logic;
+
+final class ProxEstimator {
+    private static final double LOGISTIC_SCALE = 2.89;
+    private static final double TOLERANCE = 0.01;
+    private static final int MAX_PASSES = 20;
+
+    private ProxEstimator() {
+    }
+
+    static int initialize(double[] abilities, int[] scores, int[] weights,
+                          double[] difficulties, int[] itemScores) {
+        return initialize(abilities, scores, weights, difficulties, itemScores, null);
+    }
+
+    static int initialize(double[] abilities, int[] scores, int[] weights,
+                          double[] difficulties, int[] itemScores, ObservedCells cells) {
+        int numUnits = abilities.length;
+        int numItems = difficulties.length;
+        double totalWeight = 0;
+        for (int u = 0; u < numUnits; u++) {
+            totalWeight += weights != null ? weights[u] : 1;
+        }
+        double[] itemWeights = cells != null ? cells.itemWeights(weights) : null;
+
+        double[] personLogits = new double[numUnits];
+        boolean[] personActive = new boolean[numUnits];
+        for (int u = 0; u < numUnits; u++) {
+            int maximum = cells != null ? cells.count(u) : numItems;
+            personActive[u] = scores[u] > 0 && scores[u] < maximum;
+            personLogits[u] = maximum > 0 ? logit(scores[u], maximum) : 0;
+        }
+        double[] itemLogits = new double[numItems];
+        boolean[] itemActive = new boolean[numItems];
+        for (int i = 0; i < numItems; i++) {
+            double maximum = itemWeights != null ? itemWeights[i] : totalWeight;
+            itemActive[i] = itemScores[i] > 0 && itemScores[i] < maximum;
+            itemLogits[i] = maximum > 0 ? -logit(itemScores[i], maximum) : 0;
+        }
+
+        System.arraycopy(personLogits, 0, abilities, 0, numUnits);
+        System.arraycopy(itemLogits, 0, difficulties, 0, numItems);
+        center(abilities, difficulties, itemActive);
+
+        int passes = 0;
+        while (passes < MAX_PASSES) {
+            passes++;
+            double[] abilityMoments = moments(abilities, weights, personActive);
+            double[] difficultyMoments = moments(difficulties, null, itemActive);
+            double itemExpansion = Math.sqrt(1 + abilityMoments[1] / LOGISTIC_SCALE);
+            double personExpansion = Math.sqrt(1 + difficultyMoments[1] / LOGISTIC_SCALE);
+
+            double maxChange = 0;
+            for (int i = 0; i < numItems; i++) {
+                double updated = abilityMoments[0] + itemExpansion * itemLogits[i];
+                maxChange = Math.max(maxChange, Math.abs(updated - difficulties[i]));
+                difficulties[i] = updated;
+            }
+            for (int u = 0; u < numUnits; u++) {
+                double updated = difficultyMoments[0] + personExpansion * personLogits[u];
+                maxChange = Math.max(maxChange, Math.abs(updated - abilities[u]));
+                abilities[u] = updated;
+            }
+            center(abilities, difficulties, itemActive);
+
+            if (maxChange < TOLERANCE) {
+                break;
+            }
+        }
+        return passes;
+    }
+
+    private static double logit(int score, double maximum) {
+        double adjusted = Math.max(ActiveSet.EXTREME_ADJUSTMENT, Math.min(score, maximum - ActiveSet.EXTREME_ADJUSTMENT));
+        return Math.log(adjusted / (maximum - adjusted));
+    }
+
+    private static double[] moments(double[] values, int[] weights, boolean[] active) {
+        double sumWeight = 0;
+        double sum = 0;
+        double sumSq = 0;
+        for (int k = 0; k < values.length; k++) {
+            if (!active[k]) continue;
+            double weight = weights != null ? weights[k] : 1;
+            sumWeight += weight;
+            sum += weight * values[k];
+            sumSq += weight * values[k] * values[k];
+        }
+        if (sumWeight == 0) {
+            return new double[] {0, 0};
+        }
+        double mean = sum / sumWeight;
+        return new double[] {mean, Math.max(0, sumSq / sumWeight - mean * mean)};
+    }
+
+    private static void center(double[] abilities, double[] difficulties, boolean[] itemActive) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < difficulties.length; i++) {
+            if (itemActive[i]) {
+                sum += difficulties[i];
+                count++;
+            }
+        }
+        double mean = count > 0 ? sum / count : 0;
+        for (int i = 0; i < difficulties.length; i++) {
+            difficulties[i] -= mean;
+        }
+        for (int u = 0; u < abilities.length; u++) {
+            abilities[u] -= mean;
+        }
+    }
+}
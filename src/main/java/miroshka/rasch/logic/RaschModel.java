@@ -1,88 +1,350 @@
 package miroshka.rasch.logic;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 public class RaschModel {
     private double[] personAbilities;
     private double[] itemDifficulties;
-    
-    private static final int MAX_ITERATIONS = 100;
-    private static final double CONVERGENCE_CRITERION = 0.001;
+    private Population population;
+    private ScoreTable scoreTable;
+    private boolean extremesAdjusted;
+    private final EstimationSettings settings;
+    private final ParallelExecutor executor;
     
     public RaschModel() {
+        this(EstimationSettings.defaults());
+    }
+    
+    public RaschModel(EstimationSettings settings) {
+        this.settings = settings != null ? settings : EstimationSettings.defaults();
+        this.executor = new ParallelExecutor(this.settings.getParallelism());
         this.personAbilities = new double[0];
         this.itemDifficulties = new double[0];
+        this.population = Population.notAvailable();
     }
     
     public RaschResult calculate(double[][] data) {
-        if (data == null || data.length == 0 || data[0].length == 0) {
+        return calculate(ResponseMatrix.fromDense(data));
+    }
+    
+    public RaschResult calculate(ResponseMatrix data) {
+        return calculate(data, null, null);
+    }
+
+    /**
+     * Warm-starts from a previous result. Items and persons are matched by position,
+     * so the data must list them in the same order as the run that produced {@code previous}.
+     */
+    public RaschResult calculate(ResponseMatrix data, RaschResult previous) {
+        if (previous == null || previous.isEmpty()) {
+            return calculate(data);
+        }
+        return calculate(data, previous.getItemDifficulties(), previous.getPersonAbilities());
+    }
+
+    /**
+     * Starts estimation from the given difficulties and, optionally, abilities.
+     * Abilities are matched to rows by position and are ignored when their count differs
+     * from the number of persons; difficulties are required whenever abilities are given.
+     */
+    public RaschResult calculate(ResponseMatrix data, double[] startDifficulties, double[] startAbilities) {
+        if (startAbilities != null && startDifficulties == null) {
+            throw new IllegalArgumentException("Начальные способности заданы без начальных трудностей заданий");
+        }
+        if (data == null || data.isEmpty()) {
             return new RaschResult(new double[0], new double[0], new double[0], new double[0], new double[0], new double[0], new double[0], new double[0], new double[0], new double[0]);
         }
 
-        int numPersons = data.length;
-        int numItems = data[0].length;
+        int numPersons = data.getNumPersons();
+        int numItems = data.getNumItems();
 
         personAbilities = new double[numPersons];
         itemDifficulties = new double[numItems];
+        population = Population.notAvailable();
+        scoreTable = null;
+        extremesAdjusted = true;
+        boolean warmStart = startDifficulties != null;
+        if (warmStart && startDifficulties.length != numItems) {
+            throw new IllegalArgumentException("Количество начальных трудностей не совпадает с количеством заданий");
+        }
+
+        ResponsePatterns patterns = settings.isPatternDeduplication() ? ResponsePatterns.fromMatrix(data) : null;
+        if (patterns != null && patterns.size() == numPersons) {
+            patterns = null;
+        } else if (patterns != null) {
+            System.out.println("Response patterns: " + patterns.size() + " unique of " + numPersons + ".");
+        }
+        if (data.hasMissing()) {
+            System.out.println("Observed responses: " + data.getObservedCount() + " of "
+                + (long) numPersons * numItems + " (density " + data.getDensity() + ").");
+        }
 
-        binarizeData(data);
-        performIterativeComputation(data);
+        int[] personScores = data.rawScores();
+        int[] itemScores = data.itemScores();
+        if (warmStart) {
+            if (startAbilities != null && startAbilities.length != numPersons) {
+                System.out.println("Start abilities cover " + startAbilities.length + " rows but the data has "
+                    + numPersons + " persons, starting persons from their raw scores.");
+                startAbilities = null;
+            }
+            int reused = applyStartValues(data, personScores, startDifficulties, startAbilities);
+            System.out.println("Warm start from " + numItems + " item difficulties and " + reused + " of "
+                + numPersons + " person abilities.");
+        }
+        EstimationSettings.FitComputation fitComputation = settings.getFitComputation();
+        RowKernel rows = RowKernel.create(settings);
+        ResponseMatrix fitData = patterns != null ? patterns.getPatterns() : data;
+        FitStatistics fitStats = null;
+        ProbabilityKernel kernel = new ProbabilityKernel(executor, rows);
+        ScoreGroups groups = settings.getPersonEstimation() == EstimationSettings.PersonEstimation.SCORE_GROUPS
+            ? ScoreGroups.fromMatrix(data, personScores)
+            : null;
+        ObservedCells fitCells = groups == null ? ObservedCells.of(fitData, null) : null;
+        double[] unitAbilities;
+        int[] unitScores;
+        int[] unitWeights;
+        ObservedCells cells;
+        if (groups != null) {
+            unitAbilities = warmStart ? groups.collapse(personAbilities) : new double[groups.size()];
+            unitScores = groups.getScores();
+            unitWeights = groups.getCounts();
+            cells = ObservedCells.of(data, groups.getRepresentatives());
+        } else if (patterns != null) {
+            unitAbilities = warmStart ? patterns.collapse(personAbilities) : new double[patterns.size()];
+            unitScores = patterns.getPatterns().rawScores();
+            unitWeights = patterns.getCounts();
+            cells = fitCells;
+        } else {
+            unitAbilities = personAbilities;
+            unitScores = personScores;
+            unitWeights = null;
+            cells = fitCells;
+        }
+
+        Convergence convergence = estimate(unitAbilities, unitScores, unitWeights, itemScores, cells, warmStart,
+            executor, kernel);
+        if (groups != null) {
+            personAbilities = groups.expand(unitAbilities);
+        } else if (patterns != null) {
+            personAbilities = patterns.expand(unitAbilities);
+        } else {
+            personAbilities = unitAbilities;
+        }
         validateResults();
+        if (data.hasMissing()) {
+            System.out.println("Score table is not available for an incomplete response matrix.");
+        } else if (scoreTable == null && extremesAdjusted) {
+            scoreTable = ScoreTable.forDifficulties(itemDifficulties, PersonScorer.Estimator.MLE);
+        }
         
-        FitStatistics fitStats = calculateFitStatistics(data);
-
-        return new RaschResult(
-            personAbilities, itemDifficulties,
-            fitStats.personInfitMNSQ, fitStats.personOutfitMNSQ,
-            fitStats.personInfitZSTD, fitStats.personOutfitZSTD,
-            fitStats.itemInfitMNSQ, fitStats.itemOutfitMNSQ,
-            fitStats.itemInfitZSTD, fitStats.itemOutfitZSTD
-        );
+        if (fitComputation == EstimationSettings.FitComputation.EAGER) {
+            fitStats = computeFit(kernel, fitData, groups == null ? fitCells : ObservedCells.of(fitData, null),
+                patterns, personAbilities, itemDifficulties);
+        }
+
+        Supplier<FitStatistics> fitSource = fitStats == null
+            ? deferFit(executor, rows, fitData, patterns, personAbilities.clone(), itemDifficulties.clone())
+            : null;
+        RaschResult result = new RaschResult(personAbilities, itemDifficulties, fitStats, fitSource,
+            convergence, population, scoreTable);
+        if (fitComputation == EstimationSettings.FitComputation.BACKGROUND) {
+            result.computeFitAsync();
+        }
+        return result;
+    }
+
+    private static Supplier<FitStatistics> deferFit(ParallelExecutor executor, RowKernel rows,
+                                                    ResponseMatrix fitData, ResponsePatterns patterns,
+                                                    double[] abilities, double[] difficulties) {
+        return () -> computeFit(new ProbabilityKernel(executor, rows), fitData, ObservedCells.of(fitData, null),
+            patterns, abilities, difficulties);
+    }
+
+    private static FitStatistics computeFit(ProbabilityKernel kernel, ResponseMatrix fitData, ObservedCells fitCells,
+                                            ResponsePatterns patterns, double[] abilities, double[] difficulties) {
+        if (patterns == null) {
+            return calculateFitStatistics(kernel.accumulateFit(fitData, abilities, difficulties, null, fitCells));
+        }
+        double[] patternAbilities = new double[patterns.size()];
+        for (int k = 0; k < patternAbilities.length; k++) {
+            patternAbilities[k] = abilities[patterns.representativeOf(k)];
+        }
+        return calculateFitStatistics(kernel.accumulateFit(fitData, patternAbilities, difficulties,
+            patterns.getCounts(), fitCells)).expandPersons(patterns);
     }
     
-    private void binarizeData(double[][] data) {
-        for (int i = 0; i < data.length; i++) {
-            for (int j = 0; j < data[i].length; j++) {
-                if (data[i][j] != 0.0 && data[i][j] != 1.0) {
-                    data[i][j] = data[i][j] > 0.5 ? 1.0 : 0.0;
+    private int applyStartValues(ResponseMatrix data, int[] scores, double[] startDifficulties,
+                                 double[] startAbilities) {
+        int numItems = itemDifficulties.length;
+        double mean = 0;
+        int finite = 0;
+        for (double difficulty : startDifficulties) {
+            if (Double.isFinite(difficulty)) {
+                mean += difficulty;
+                finite++;
+            }
+        }
+        mean = finite > 0 ? mean / finite : 0;
+        for (int i = 0; i < numItems; i++) {
+            itemDifficulties[i] = Double.isFinite(startDifficulties[i]) ? startDifficulties[i] - mean : 0;
+        }
+
+        double[] scoreAbilities = new double[numItems + 1];
+        Arrays.fill(scoreAbilities, Double.NaN);
+        double[] observedDifficulties = data.hasMissing() ? new double[numItems] : itemDifficulties;
+        int reused = 0;
+        for (int p = 0; p < personAbilities.length; p++) {
+            if (startAbilities != null && Double.isFinite(startAbilities[p])) {
+                personAbilities[p] = startAbilities[p] - mean;
+                reused++;
+                continue;
+            }
+            if (!data.hasMissing()) {
+                if (Double.isNaN(scoreAbilities[scores[p]])) {
+                    scoreAbilities[scores[p]] = abilityForScore(scores[p], itemDifficulties);
                 }
+                personAbilities[p] = scoreAbilities[scores[p]];
+                continue;
             }
+            int maximum = 0;
+            for (int i = 0; i < numItems; i++) {
+                if (data.isObserved(p, i)) {
+                    observedDifficulties[maximum++] = itemDifficulties[i];
+                }
+            }
+            personAbilities[p] = maximum > 0 ? abilityForScore(scores[p], Arrays.copyOf(observedDifficulties, maximum)) : 0;
         }
+        return reused;
+    }
+
+    private static double abilityForScore(int score, double[] difficulties) {
+        double target = Math.max(ActiveSet.EXTREME_ADJUSTMENT,
+            Math.min(score, difficulties.length - ActiveSet.EXTREME_ADJUSTMENT));
+        return ProbabilityKernel.abilityForScore(target, difficulties);
+    }
+
+    private Convergence estimate(double[] abilities, int[] scores, int[] weights, int[] itemScores,
+                                 ObservedCells cells, boolean warmStart, ParallelExecutor executor,
+                                 ProbabilityKernel kernel) {
+        if (!warmStart && settings.getStartValues() == EstimationSettings.StartValues.PROX) {
+            int passes = ProxEstimator.initialize(abilities, scores, weights, itemDifficulties, itemScores, cells);
+            System.out.println("PROX start values computed in " + passes + " passes.");
+        }
+        EstimationSettings.Method method = settings.getMethod();
+        if (cells != null && method != EstimationSettings.Method.JMLE) {
+            System.out.println(method + " needs a complete response matrix, using JMLE for the incomplete design.");
+            method = EstimationSettings.Method.JMLE;
+        }
+        if (method == EstimationSettings.Method.MML) {
+            MarginalEstimator estimator = new MarginalEstimator(executor, settings);
+            Convergence convergence = estimator.estimate(abilities, scores, weights, itemDifficulties, itemScores);
+            population = estimator.getPopulation();
+            scoreTable = estimator.getScoreTable();
+            return convergence;
+        }
+        Convergence convergence = null;
+        if (method == EstimationSettings.Method.CML) {
+            convergence = new ConditionalEstimator(settings)
+                .estimate(abilities, scores, weights, itemDifficulties, itemScores);
+        } else if (settings.getSolver() == EstimationSettings.Solver.NEWTON) {
+            if (itemDifficulties.length > NewtonSolver.itemLimit(cells)) {
+                System.out.println("Newton solver is limited to " + NewtonSolver.itemLimit(cells)
+                    + " items for this design, using damped JMLE iterations for " + itemDifficulties.length + " items.");
+                return iterateDamped(abilities, scores, weights, itemScores, cells, kernel);
+            }
+            convergence = new NewtonSolver(kernel, settings)
+                .solve(abilities, scores, weights, itemDifficulties, itemScores, cells);
+        }
+        if (convergence != null) {
+            return convergence;
+        }
+        if (method != EstimationSettings.Method.JMLE || settings.getSolver() != EstimationSettings.Solver.DAMPED) {
+            System.out.println("Selected estimator needs at least two non-extreme items, falling back to damped JMLE iterations.");
+        }
+        return iterateDamped(abilities, scores, weights, itemScores, cells, kernel);
+    }
+
+    private Convergence iterateDamped(double[] abilities, int[] scores, int[] weights,
+                                      int[] itemScores, ObservedCells cells, ProbabilityKernel kernel) {
+        Convergence convergence = performIterativeComputation(abilities, scores, weights, itemScores, cells, kernel);
+        ActiveSet active = ActiveSet.prune(scores, weights, itemScores, cells);
+        if (active.numItems < 2 || active.numUnits == 0) {
+            System.out.println("Fewer than two items have non-extreme responses, extreme scores are left unadjusted.");
+            extremesAdjusted = false;
+            return convergence;
+        }
+        double[] referenceAbilities = new double[active.numUnits];
+        int[] referenceWeights = new int[active.numUnits];
+        for (int u = 0, k = 0; u < abilities.length; u++) {
+            if (active.units[u]) {
+                referenceAbilities[k] = abilities[u];
+                referenceWeights[k++] = weights != null ? weights[u] : 1;
+            }
+        }
+        active.completeExtremes(abilities, scores, weights, itemDifficulties, referenceAbilities, referenceWeights);
+        return convergence;
     }
     
-    private void performIterativeComputation(double[][] data) {
-        int numPersons = data.length;
-        int numItems = data[0].length;
+    private Convergence performIterativeComputation(double[] abilities, int[] scores, int[] weights,
+                                                    int[] itemScores, ObservedCells cells, ProbabilityKernel kernel) {
+        double totalWeight = 0;
+        for (int u = 0; u < abilities.length; u++) {
+            totalWeight += weights != null ? weights[u] : 1;
+        }
+        double[] itemWeights = cells != null ? cells.itemWeights(weights) : null;
+        
+        int maxIterations = settings.getMaxIterations();
+        double[] unitExpected = new double[abilities.length];
+        double[] itemExpected = new double[itemDifficulties.length];
+        double[] residualHistory = new double[maxIterations];
+        double maxChange = 0;
+        int iterations = 0;
+        boolean converged = false;
         
-        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
-            double maxChange = 0;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            maxChange = 0;
 
-            maxChange = Math.max(maxChange, updateItemDifficulties(data));
-            maxChange = Math.max(maxChange, updatePersonAbilities(data));
+            kernel.accumulateExpectedScores(abilities, weights, itemDifficulties, cells, unitExpected, itemExpected);
+            residualHistory[iteration] = maxScoreResidual(scores, unitExpected, itemScores, itemExpected);
+            maxChange = Math.max(maxChange, updateItemDifficulties(itemExpected, totalWeight, itemWeights, itemScores));
+            maxChange = Math.max(maxChange, updatePersonAbilities(abilities, unitExpected, scores, cells));
+            iterations = iteration + 1;
 
-            if (maxChange < CONVERGENCE_CRITERION) {
-                System.out.println("Converged after " + (iteration + 1) + " iterations.");
+            if (maxChange < settings.getParameterTolerance()) {
+                System.out.println("Converged after " + iterations + " iterations.");
+                converged = true;
                 break;
             }
         }
+        
+        double lastResidual = iterations > 0 ? residualHistory[iterations - 1] : 0;
+        return new Convergence(iterations, converged, maxChange, lastResidual, Arrays.copyOf(residualHistory, iterations));
+    }
+    
+    private double maxScoreResidual(int[] scores, double[] unitExpected, int[] itemScores, double[] itemExpected) {
+        double maxResidual = 0;
+        for (int u = 0; u < scores.length; u++) {
+            maxResidual = Math.max(maxResidual, Math.abs(scores[u] - unitExpected[u]));
+        }
+        for (int i = 0; i < itemScores.length; i++) {
+            maxResidual = Math.max(maxResidual, Math.abs(itemScores[i] - itemExpected[i]));
+        }
+        return maxResidual;
     }
     
-    private double updateItemDifficulties(double[][] data) {
+    private double updateItemDifficulties(double[] itemExpected, double totalWeight, double[] itemWeights,
+                                          int[] itemScores) {
         double maxChange = 0;
-        int numPersons = data.length;
-        int numItems = data[0].length;
+        int numItems = itemDifficulties.length;
         
         double[] newItemDifficulties = new double[numItems];
         for (int i = 0; i < numItems; i++) {
-            double sumProb = 0;
-            double correctCount = 0;
-            for (int p = 0; p < numPersons; p++) {
-                correctCount += data[p][i];
-                double expValue = Math.max(Math.min(personAbilities[p] - itemDifficulties[i], 30), -30);
-                double prob = 1.0 / (1.0 + Math.exp(-expValue));
-                sumProb += prob;
-            }
-            
-            double denominator = (sumProb * (1 - sumProb / numPersons));
-            double delta = denominator > 0.0001 ? (correctCount - sumProb) / denominator : 0;
+            double sumProb = itemExpected[i];
+            double observedWeight = itemWeights != null ? itemWeights[i] : totalWeight;
+            double denominator = observedWeight > 0 ? sumProb * (1 - sumProb / observedWeight) : 0;
+            double delta = denominator > 0.0001 ? (itemScores[i] - sumProb) / denominator : 0;
             
             delta = Math.max(Math.min(delta, 1.0), -1.0);
             newItemDifficulties[i] = itemDifficulties[i] - delta;
@@ -101,35 +363,22 @@ public class RaschModel {
         return maxChange;
     }
     
-    private double updatePersonAbilities(double[][] data) {
+    private double updatePersonAbilities(double[] abilities, double[] unitExpected, int[] scores, ObservedCells cells) {
         double maxChange = 0;
-        int numPersons = data.length;
-        int numItems = data[0].length;
+        int numItems = itemDifficulties.length;
         
-        double[] newPersonAbilities = new double[numPersons];
-        for (int p = 0; p < numPersons; p++) {
-            double sumProb = 0;
-            double correctCount = 0;
-            for (int i = 0; i < numItems; i++) {
-                correctCount += data[p][i];
-                double expValue = Math.max(Math.min(personAbilities[p] - itemDifficulties[i], 30), -30);
-                double prob = 1.0 / (1.0 + Math.exp(-expValue));
-                sumProb += prob;
-            }
-            
-            double denominator = (sumProb * (1 - sumProb / numItems));
-            double delta = denominator > 0.0001 ? (correctCount - sumProb) / denominator : 0;
+        for (int u = 0; u < abilities.length; u++) {
+            double sumProb = unitExpected[u];
+            int observedItems = cells != null ? cells.count(u) : numItems;
+            double denominator = observedItems > 0 ? sumProb * (1 - sumProb / observedItems) : 0;
+            double delta = denominator > 0.0001 ? (scores[u] - sumProb) / denominator : 0;
             
             delta = Math.max(Math.min(delta, 1.0), -1.0);
-            newPersonAbilities[p] = personAbilities[p] + delta;
-        }
-
-        for (int p = 0; p < numPersons; p++) {
-            double change = Math.abs(newPersonAbilities[p] - personAbilities[p]);
+            double change = Math.abs(delta);
             if (change > maxChange) {
                 maxChange = change;
             }
-            personAbilities[p] = newPersonAbilities[p];
+            abilities[u] += delta;
         }
         
         return maxChange;
@@ -157,9 +406,9 @@ public class RaschModel {
         }
     }
     
-    private FitStatistics calculateFitStatistics(double[][] data) {
-        int numPersons = data.length;
-        int numItems = data[0].length;
+    private static FitStatistics calculateFitStatistics(ProbabilityKernel.FitPass fitPass) {
+        int numPersons = fitPass.persons.count.length;
+        int numItems = fitPass.items.count.length;
 
         double[] personInfitMNSQ = new double[numPersons];
         double[] personOutfitMNSQ = new double[numPersons];
@@ -171,86 +420,43 @@ public class RaschModel {
         double[] itemInfitZSTD = new double[numItems];
         double[] itemOutfitZSTD = new double[numItems];
 
-        for (int p = 0; p < numPersons; p++) {
-            double sumResidualSq = 0;
-            double sumStdResidualSq = 0;
-            double sumVariance = 0;
-            double sumKurtosis = 0;
-            int count = 0;
+        fillFitStatistics(fitPass.persons, personInfitMNSQ, personOutfitMNSQ, personInfitZSTD, personOutfitZSTD);
+        fillFitStatistics(fitPass.items, itemInfitMNSQ, itemOutfitMNSQ, itemInfitZSTD, itemOutfitZSTD);
 
-            for (int i = 0; i < numItems; i++) {
-                double prob = 1.0 / (1.0 + Math.exp(-(personAbilities[p] - itemDifficulties[i])));
-                double variance = prob * (1.0 - prob);
-                if (variance < 1e-6) continue;
-
-                double residual = data[p][i] - prob;
-                double stdResidual = residual / Math.sqrt(variance);
-                
-                sumResidualSq += residual * residual;
-                sumStdResidualSq += stdResidual * stdResidual;
-                sumVariance += variance;
-
-                double kurtosis = -2.0; 
-                sumKurtosis += variance * kurtosis;
-                count++;
-            }
-            
-            if (count > 0) {
-                personOutfitMNSQ[p] = sumStdResidualSq / count;
-                personInfitMNSQ[p] = sumResidualSq / sumVariance;
+        return new FitStatistics(personInfitMNSQ, personOutfitMNSQ, personInfitZSTD, personOutfitZSTD,
+                                 itemInfitMNSQ, itemOutfitMNSQ, itemInfitZSTD, itemOutfitZSTD);
+    }
+    
+    private static void fillFitStatistics(ProbabilityKernel.FitSums sums, double[] infitMNSQ, double[] outfitMNSQ,
+                                   double[] infitZSTD, double[] outfitZSTD) {
+        for (int k = 0; k < sums.count.length; k++) {
+            int count = sums.count[k];
+            if (count == 0) continue;
 
-                if (personOutfitMNSQ[p] > 0) {
-                    personOutfitZSTD[p] = (Math.pow(personOutfitMNSQ[p], 1.0/3.0) - 1.0) * (3.0 / Math.sqrt(2.0/count)) + (Math.sqrt(2.0/count)/3.0);
-                }
-                 if (personInfitMNSQ[p] > 0) {
-                    double q_p = sumKurtosis / sumVariance;
-                    double sd_infit = Math.sqrt(q_p);
-                    personInfitZSTD[p] = (Math.pow(personInfitMNSQ[p], 1.0/3.0) - 1.0) * (3.0 / sd_infit) + (sd_infit/3.0);
-                }
-            }
+            double sumVariance = sums.sumVariance[k];
+            outfitMNSQ[k] = sums.sumStdResidualSq[k] / count;
+            infitMNSQ[k] = sums.sumResidualSq[k] / sumVariance;
+            outfitZSTD[k] = outfitZSTD(outfitMNSQ[k], count);
+            infitZSTD[k] = infitZSTD(infitMNSQ[k], sumVariance, sums.sumVarianceSq[k]);
         }
+    }
 
-        for (int i = 0; i < numItems; i++) {
-            double sumResidualSq = 0;
-            double sumStdResidualSq = 0;
-            double sumVariance = 0;
-            double sumKurtosis = 0;
-            int count = 0;
-            
-            for (int p = 0; p < numPersons; p++) {
-                double prob = 1.0 / (1.0 + Math.exp(-(personAbilities[p] - itemDifficulties[i])));
-                double variance = prob * (1.0 - prob);
-                if (variance < 1e-6) continue;
-
-                double residual = data[p][i] - prob;
-                double stdResidual = residual / Math.sqrt(variance);
-
-                sumResidualSq += residual * residual;
-                sumStdResidualSq += stdResidual * stdResidual;
-                sumVariance += variance;
-                
-                double kurtosis = -2.0; 
-                sumKurtosis += variance * kurtosis;
-                count++;
-            }
-
-            if (count > 0) {
-                itemOutfitMNSQ[i] = sumStdResidualSq / count;
-                itemInfitMNSQ[i] = sumResidualSq / sumVariance;
-                
-                if (itemOutfitMNSQ[i] > 0) {
-                    itemOutfitZSTD[i] = (Math.pow(itemOutfitMNSQ[i], 1.0/3.0) - 1.0) * (3.0 / Math.sqrt(2.0/count)) + (Math.sqrt(2.0/count)/3.0);
-                }
-                if (itemInfitMNSQ[i] > 0) {
-                    double q_i = sumKurtosis / sumVariance;
-                    double sd_infit = Math.sqrt(q_i);
-                    itemInfitZSTD[i] = (Math.pow(itemInfitMNSQ[i], 1.0/3.0) - 1.0) * (3.0 / sd_infit) + (sd_infit/3.0);
-                }
-            }
+    static double outfitZSTD(double outfitMNSQ, int count) {
+        if (!(outfitMNSQ > 0)) {
+            return 0;
         }
+        return (Math.pow(outfitMNSQ, 1.0/3.0) - 1.0) * (3.0 / Math.sqrt(2.0/count)) + (Math.sqrt(2.0/count)/3.0);
+    }
 
-        return new FitStatistics(personInfitMNSQ, personOutfitMNSQ, personInfitZSTD, personOutfitZSTD,
-                                 itemInfitMNSQ, itemOutfitMNSQ, itemInfitZSTD, itemOutfitZSTD);
+    static double infitZSTD(double infitMNSQ, double sumVariance, double sumVarianceSq) {
+        if (!(infitMNSQ > 0) || !(sumVariance > 0)) {
+            return 0;
+        }
+        double q = Math.sqrt(Math.max(sumVariance - 4.0 * sumVarianceSq, 0)) / sumVariance;
+        if (!(q > 0)) {
+            return 0;
+        }
+        return (Math.pow(infitMNSQ, 1.0/3.0) - 1.0) * (3.0 / q) + (q / 3.0);
     }
     
     public double[] getPersonAbilities() {
@@ -260,6 +466,10 @@ public class RaschModel {
     public double[] getItemDifficulties() {
         return itemDifficulties;
     }
+
+    public Population getPopulation() {
+        return population;
+    }
     
     private static class FitStatistics {
         final double[] personInfitMNSQ, personOutfitMNSQ, personInfitZSTD, personOutfitZSTD;
@@ -276,35 +486,152 @@ public class RaschModel {
             this.itemInfitZSTD = itemInfitZSTD;
             this.itemOutfitZSTD = itemOutfitZSTD;
         }
+
+        FitStatistics expandPersons(ResponsePatterns patterns) {
+            return new FitStatistics(patterns.expand(personInfitMNSQ), patterns.expand(personOutfitMNSQ),
+                                     patterns.expand(personInfitZSTD), patterns.expand(personOutfitZSTD),
+                                     itemInfitMNSQ, itemOutfitMNSQ, itemInfitZSTD, itemOutfitZSTD);
+        }
+    }
+    
+    public static final class Convergence {
+        private static final Convergence NOT_AVAILABLE = new Convergence(0, Status.NOT_AVAILABLE, Double.NaN,
+            Double.NaN, new double[0]);
+
+        public enum Status {
+            CONVERGED, ITERATION_LIMIT, LINE_SEARCH_FAILED, NOT_AVAILABLE
+        }
+
+        private final int iterations;
+        private final Status status;
+        private final double maxParameterChange;
+        private final double maxScoreResidual;
+        private final double[] residualHistory;
+
+        public Convergence(int iterations, boolean converged, double maxParameterChange,
+                           double maxScoreResidual, double[] residualHistory) {
+            this(iterations, converged ? Status.CONVERGED : Status.ITERATION_LIMIT, maxParameterChange,
+                 maxScoreResidual, residualHistory);
+        }
+
+        public Convergence(int iterations, Status status, double maxParameterChange,
+                           double maxScoreResidual, double[] residualHistory) {
+            this.iterations = iterations;
+            this.status = status != null ? status : Status.NOT_AVAILABLE;
+            this.maxParameterChange = maxParameterChange;
+            this.maxScoreResidual = maxScoreResidual;
+            this.residualHistory = residualHistory;
+        }
+
+        public static Convergence notAvailable() {
+            return NOT_AVAILABLE;
+        }
+
+        public int getIterations() { return iterations; }
+        public boolean isConverged() { return status == Status.CONVERGED; }
+        public Status getStatus() { return status; }
+        public double getMaxParameterChange() { return maxParameterChange; }
+        public double getMaxScoreResidual() { return maxScoreResidual; }
+        public double[] getResidualHistory() { return residualHistory.clone(); }
+
+        @Override
+        public String toString() {
+            return String.format("Convergence{iterations=%d, status=%s, maxParameterChange=%s, maxScoreResidual=%s}",
+                iterations, status, maxParameterChange, maxScoreResidual);
+        }
+    }
+    
+    public static final class Population {
+        private static final Population NOT_AVAILABLE = new Population(Double.NaN, Double.NaN);
+
+        private final double mean;
+        private final double variance;
+
+        public Population(double mean, double variance) {
+            this.mean = mean;
+            this.variance = variance;
+        }
+
+        public static Population notAvailable() {
+            return NOT_AVAILABLE;
+        }
+
+        public boolean isAvailable() { return !Double.isNaN(mean); }
+        public double getMean() { return mean; }
+        public double getVariance() { return variance; }
+        public double getStandardDeviation() { return Math.sqrt(variance); }
+
+        @Override
+        public String toString() {
+            return String.format("Population{mean=%s, variance=%s}", mean, variance);
+        }
     }
     
     public static class RaschResult {
         private final double[] personAbilities;
         private final double[] itemDifficulties;
-        private final double[] personInfitMNSQ;
-        private final double[] personOutfitMNSQ;
-        private final double[] personInfitZSTD;
-        private final double[] personOutfitZSTD;
-        private final double[] itemInfitMNSQ;
-        private final double[] itemOutfitMNSQ;
-        private final double[] itemInfitZSTD;
-        private final double[] itemOutfitZSTD;
+        private final Convergence convergence;
+        private final Population population;
+        private final ScoreTable scoreTable;
+        private final Object fitLock = new Object();
+        private volatile FitStatistics fitStats;
+        private Supplier<FitStatistics> fitSource;
+        private CompletableFuture<RaschResult> fitTask;
 
         public RaschResult(double[] personAbilities, double[] itemDifficulties,
                            double[] personInfitMNSQ, double[] personOutfitMNSQ,
                            double[] personInfitZSTD, double[] personOutfitZSTD,
                            double[] itemInfitMNSQ, double[] itemOutfitMNSQ,
                            double[] itemInfitZSTD, double[] itemOutfitZSTD) {
+            this(personAbilities, itemDifficulties, personInfitMNSQ, personOutfitMNSQ,
+                 personInfitZSTD, personOutfitZSTD, itemInfitMNSQ, itemOutfitMNSQ,
+                 itemInfitZSTD, itemOutfitZSTD, Convergence.notAvailable());
+        }
+
+        public RaschResult(double[] personAbilities, double[] itemDifficulties,
+                           double[] personInfitMNSQ, double[] personOutfitMNSQ,
+                           double[] personInfitZSTD, double[] personOutfitZSTD,
+                           double[] itemInfitMNSQ, double[] itemOutfitMNSQ,
+                           double[] itemInfitZSTD, double[] itemOutfitZSTD,
+                           Convergence convergence) {
+            this(personAbilities, itemDifficulties, personInfitMNSQ, personOutfitMNSQ,
+                 personInfitZSTD, personOutfitZSTD, itemInfitMNSQ, itemOutfitMNSQ,
+                 itemInfitZSTD, itemOutfitZSTD, convergence, Population.notAvailable());
+        }
+
+        public RaschResult(double[] personAbilities, double[] itemDifficulties,
+                           double[] personInfitMNSQ, double[] personOutfitMNSQ,
+                           double[] personInfitZSTD, double[] personOutfitZSTD,
+                           double[] itemInfitMNSQ, double[] itemOutfitMNSQ,
+                           double[] itemInfitZSTD, double[] itemOutfitZSTD,
+                           Convergence convergence, Population population) {
+            this(personAbilities, itemDifficulties, personInfitMNSQ, personOutfitMNSQ,
+                 personInfitZSTD, personOutfitZSTD, itemInfitMNSQ, itemOutfitMNSQ,
+                 itemInfitZSTD, itemOutfitZSTD, convergence, population, null);
+        }
+
+        public RaschResult(double[] personAbilities, double[] itemDifficulties,
+                           double[] personInfitMNSQ, double[] personOutfitMNSQ,
+                           double[] personInfitZSTD, double[] personOutfitZSTD,
+                           double[] itemInfitMNSQ, double[] itemOutfitMNSQ,
+                           double[] itemInfitZSTD, double[] itemOutfitZSTD,
+                           Convergence convergence, Population population, ScoreTable scoreTable) {
+            this(personAbilities, itemDifficulties,
+                 new FitStatistics(personInfitMNSQ, personOutfitMNSQ, personInfitZSTD, personOutfitZSTD,
+                                   itemInfitMNSQ, itemOutfitMNSQ, itemInfitZSTD, itemOutfitZSTD),
+                 null, convergence, population, scoreTable);
+        }
+
+        private RaschResult(double[] personAbilities, double[] itemDifficulties, FitStatistics fitStats,
+                            Supplier<FitStatistics> fitSource, Convergence convergence, Population population,
+                            ScoreTable scoreTable) {
             this.personAbilities = personAbilities;
             this.itemDifficulties = itemDifficulties;
-            this.personInfitMNSQ = personInfitMNSQ;
-            this.personOutfitMNSQ = personOutfitMNSQ;
-            this.personInfitZSTD = personInfitZSTD;
-            this.personOutfitZSTD = personOutfitZSTD;
-            this.itemInfitMNSQ = itemInfitMNSQ;
-            this.itemOutfitMNSQ = itemOutfitMNSQ;
-            this.itemInfitZSTD = itemInfitZSTD;
-            this.itemOutfitZSTD = itemOutfitZSTD;
+            this.fitStats = fitStats;
+            this.fitSource = fitSource;
+            this.convergence = convergence != null ? convergence : Convergence.notAvailable();
+            this.population = population != null ? population : Population.notAvailable();
+            this.scoreTable = scoreTable;
         }
         
         public double[] getPersonAbilities() {
@@ -315,15 +642,52 @@ public class RaschModel {
             return itemDifficulties;
         }
         
-        public double[] getPersonInfitMNSQ() { return personInfitMNSQ; }
-        public double[] getPersonOutfitMNSQ() { return personOutfitMNSQ; }
-        public double[] getPersonInfitZSTD() { return personInfitZSTD; }
-        public double[] getPersonOutfitZSTD() { return personOutfitZSTD; }
-        public double[] getItemInfitMNSQ() { return itemInfitMNSQ; }
-        public double[] getItemOutfitMNSQ() { return itemOutfitMNSQ; }
-        public double[] getItemInfitZSTD() { return itemInfitZSTD; }
-        public double[] getItemOutfitZSTD() { return itemOutfitZSTD; }
+        public double[] getPersonInfitMNSQ() { return fitStatistics().personInfitMNSQ; }
+        public double[] getPersonOutfitMNSQ() { return fitStatistics().personOutfitMNSQ; }
+        public double[] getPersonInfitZSTD() { return fitStatistics().personInfitZSTD; }
+        public double[] getPersonOutfitZSTD() { return fitStatistics().personOutfitZSTD; }
+        public double[] getItemInfitMNSQ() { return fitStatistics().itemInfitMNSQ; }
+        public double[] getItemOutfitMNSQ() { return fitStatistics().itemOutfitMNSQ; }
+        public double[] getItemInfitZSTD() { return fitStatistics().itemInfitZSTD; }
+        public double[] getItemOutfitZSTD() { return fitStatistics().itemOutfitZSTD; }
+        public Convergence getConvergence() { return convergence; }
+        public Population getPopulation() { return population; }
         
+        public boolean isFitComputed() {
+            return fitStats != null;
+        }
+
+        public synchronized CompletableFuture<RaschResult> computeFitAsync() {
+            if (fitTask == null) {
+                fitTask = fitStats != null
+                    ? CompletableFuture.completedFuture(this)
+                    : CompletableFuture.supplyAsync(() -> {
+                        fitStatistics();
+                        return this;
+                    });
+            }
+            return fitTask;
+        }
+
+        private FitStatistics fitStatistics() {
+            FitStatistics current = fitStats;
+            if (current == null) {
+                synchronized (fitLock) {
+                    current = fitStats;
+                    if (current == null) {
+                        current = fitSource.get();
+                        fitStats = current;
+                        fitSource = null;
+                    }
+                }
+            }
+            return current;
+        }
+
+        public ScoreTable getScoreTable() {
+            return scoreTable;
+        }
+
         public boolean isEmpty() {
             return personAbilities.length == 0 || itemDifficulties.length == 0;
         }
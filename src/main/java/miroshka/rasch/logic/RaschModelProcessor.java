@@ -9,14 +9,37 @@ public class RaschModelProcessor {
     private final RaschModel raschModel;
     
     public RaschModelProcessor() {
-        this.dataReader = new DataReader();
-        this.raschModel = new RaschModel();
+        this(ReaderSettings.builder().withAllProcessors().withDefaultCache().build(),
+             EstimationSettings.builder()
+                 .withAllProcessors()
+                 .withSolver(EstimationSettings.Solver.NEWTON)
+                 .withStartValues(EstimationSettings.StartValues.PROX)
+                 .withKernel(EstimationSettings.Kernel.VECTOR)
+                 .withFitComputation(EstimationSettings.FitComputation.EAGER)
+                 .build());
     }
     
-    public double[][] readDataFromFile(File file) throws IOException {
+    public RaschModelProcessor(EstimationSettings settings) {
+        this(ReaderSettings.defaults(), settings);
+    }
+    
+    public RaschModelProcessor(ReaderSettings readerSettings, EstimationSettings settings) {
+        this.dataReader = new DataReader(readerSettings);
+        this.raschModel = new RaschModel(settings);
+    }
+    
+    public ResponseMatrix readDataFromFile(File file) throws IOException {
         return dataReader.readData(file);
     }
     
+    public RaschModel.RaschResult calculateRaschModel(ResponseMatrix data) {
+        return raschModel.calculate(data);
+    }
+    
+    public RaschModel.RaschResult calculateRaschModel(ResponseMatrix data, RaschModel.RaschResult previous) {
+        return raschModel.calculate(data, previous);
+    }
+    
     public RaschModel.RaschResult calculateRaschModel(double[][] data) {
         return raschModel.calculate(data);
     }
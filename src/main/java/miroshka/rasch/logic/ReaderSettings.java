@@ -0,0 +1,115 @@
+package miroshka.rasch.logic;
+
+import java.nio.file.Path;
+
+public final class ReaderSettings {
+    private final boolean streamingExcel;
+    private final boolean mappedCsv;
+    private final int parallelism;
+    private final Path cacheDirectory;
+    private final long cacheLimit;
+
+    private ReaderSettings(Builder builder) {
+        this.streamingExcel = builder.streamingExcel;
+        this.mappedCsv = builder.mappedCsv;
+        this.parallelism = builder.parallelism;
+        this.cacheDirectory = builder.cacheDirectory;
+        this.cacheLimit = builder.cacheLimit;
+    }
+
+    public boolean isStreamingExcel() {
+        return streamingExcel;
+    }
+
+    public boolean isMappedCsv() {
+        return mappedCsv;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public long getCacheLimit() {
+        return cacheLimit;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheDirectory != null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReaderSettings{streamingExcel=%s, mappedCsv=%s, parallelism=%d, cacheDirectory=%s, cacheLimit=%d}",
+            streamingExcel, mappedCsv, parallelism, cacheDirectory, cacheLimit);
+    }
+
+    public static ReaderSettings defaults() {
+        return builder().build();
+    }
+
+    public static Path defaultCacheDirectory() {
+        return Path.of(System.getProperty("user.home"), ".rasch-calculator", "cache");
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private boolean streamingExcel = true;
+        private boolean mappedCsv = true;
+        private int parallelism = 1;
+        private Path cacheDirectory;
+        private long cacheLimit = 1L << 30;
+
+        private Builder() {
+        }
+
+        public Builder withStreamingExcel(boolean streamingExcel) {
+            this.streamingExcel = streamingExcel;
+            return this;
+        }
+
+        public Builder withMappedCsv(boolean mappedCsv) {
+            this.mappedCsv = mappedCsv;
+            return this;
+        }
+
+        public Builder withParallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Уровень параллелизма должен быть положительным числом");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withAllProcessors() {
+            return withParallelism(Runtime.getRuntime().availableProcessors());
+        }
+
+        public Builder withCacheDirectory(Path cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        public Builder withDefaultCache() {
+            return withCacheDirectory(defaultCacheDirectory());
+        }
+
+        public Builder withCacheLimit(long cacheLimit) {
+            if (cacheLimit <= 0) {
+                throw new IllegalArgumentException("Размер кэша должен быть положительным числом");
+            }
+            this.cacheLimit = cacheLimit;
+            return this;
+        }
+
+        public ReaderSettings build() {
+            return new ReaderSettings(this);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+public final class ResponseMatrix {
+    private static final int WORD_BITS = 64;
+    private static final ResponseMatrix EMPTY = new ResponseMatrix(0, 0, new long[0], null, null);
+
+    private final int numPersons;
+    private final int numItems;
+    private final int wordsPerRow;
+    private final long[] words;
+    private final long[] observed;
+    private final String[] itemNames;
+
+    private ResponseMatrix(int numPersons, int numItems, long[] words, long[] observed, String[] itemNames) {
+        this.numPersons = numPersons;
+        this.numItems = numItems;
+        this.wordsPerRow = wordsPerRow(numItems);
+        this.words = words;
+        this.observed = observed;
+        this.itemNames = itemNames;
+    }
+
+    public static ResponseMatrix empty() {
+        return EMPTY;
+    }
+
+    public static ResponseMatrix fromDense(double[][] data) {
+        if (data == null || data.length == 0 || data[0].length == 0) {
+            return EMPTY;
+        }
+
+        int numItems = data[0].length;
+        Builder builder = new Builder(numItems, data.length);
+        boolean[] row = new boolean[numItems];
+        boolean[] seen = new boolean[numItems];
+        for (double[] values : data) {
+            for (int i = 0; i < numItems; i++) {
+                seen[i] = i < values.length && !Double.isNaN(values[i]);
+                row[i] = seen[i] && values[i] > 0.5;
+            }
+            builder.addRow(row, seen);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(int numItems) {
+        return new Builder(numItems, 16);
+    }
+
+    static int wordsPerRow(int numItems) {
+        return (numItems + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    static long fullWord(int numItems, int wordIndex) {
+        int remaining = numItems - wordIndex * WORD_BITS;
+        return remaining >= WORD_BITS ? -1L : (1L << remaining) - 1;
+    }
+
+    public int getNumPersons() {
+        return numPersons;
+    }
+
+    public int getNumItems() {
+        return numItems;
+    }
+
+    public String getItemName(int item) {
+        if (item < 0 || item >= numItems) {
+            throw new IndexOutOfBoundsException("Номер задания вне диапазона: " + item);
+        }
+        return itemNames != null ? itemNames[item] : String.valueOf(item + 1);
+    }
+
+    public String[] getItemNames() {
+        String[] names = new String[numItems];
+        for (int i = 0; i < numItems; i++) {
+            names[i] = getItemName(i);
+        }
+        return names;
+    }
+
+    boolean hasItemNames() {
+        return itemNames != null;
+    }
+
+    public boolean isEmpty() {
+        return numPersons == 0 || numItems == 0;
+    }
+
+    public boolean isCorrect(int person, int item) {
+        return get(person, item) != 0;
+    }
+
+    public int get(int person, int item) {
+        long word = words[person * wordsPerRow + (item >>> 6)];
+        return (int) (word >>> item) & 1;
+    }
+
+    public boolean hasMissing() {
+        return observed != null;
+    }
+
+    public boolean isObserved(int person, int item) {
+        return observed == null || (observed[person * wordsPerRow + (item >>> 6)] >>> item & 1L) != 0;
+    }
+
+    public int observedCount(int person) {
+        if (observed == null) {
+            return numItems;
+        }
+        int offset = person * wordsPerRow;
+        int count = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            count += Long.bitCount(observed[offset + w]);
+        }
+        return count;
+    }
+
+    public long getObservedCount() {
+        if (observed == null) {
+            return (long) numPersons * numItems;
+        }
+        long count = 0;
+        for (long word : observed) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public double getDensity() {
+        return isEmpty() ? 0 : (double) getObservedCount() / ((long) numPersons * numItems);
+    }
+
+    int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    long word(int person, int wordIndex) {
+        return words[person * wordsPerRow + wordIndex];
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    long observedWord(int person, int wordIndex) {
+        return observed != null ? observed[person * wordsPerRow + wordIndex] : fullWord(numItems, wordIndex);
+    }
+
+    long[] observedWords() {
+        return observed;
+    }
+
+    static ResponseMatrix fromWords(int numPersons, int numItems, long[] words, String[] itemNames) {
+        return fromWords(numPersons, numItems, words, null, itemNames);
+    }
+
+    static ResponseMatrix fromWords(int numPersons, int numItems, long[] words, long[] observed, String[] itemNames) {
+        if (numPersons == 0 || numItems == 0) {
+            return EMPTY;
+        }
+        if (words.length != (long) numPersons * wordsPerRow(numItems)
+                || (observed != null && observed.length != words.length)) {
+            throw new IllegalArgumentException("Размер упакованных данных не совпадает с размерами матрицы");
+        }
+        if (itemNames != null && itemNames.length != numItems) {
+            throw new IllegalArgumentException("Количество названий заданий не совпадает с количеством заданий");
+        }
+        return new ResponseMatrix(numPersons, numItems, words, observed, itemNames);
+    }
+
+    public int rawScore(int person) {
+        int offset = person * wordsPerRow;
+        int score = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            score += Long.bitCount(words[offset + w]);
+        }
+        return score;
+    }
+
+    public int[] rawScores() {
+        int[] scores = new int[numPersons];
+        for (int p = 0; p < numPersons; p++) {
+            scores[p] = rawScore(p);
+        }
+        return scores;
+    }
+
+    public int[] itemScores() {
+        int[] scores = new int[numItems];
+        for (int p = 0; p < numPersons; p++) {
+            int offset = p * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long bits = words[offset + w];
+                while (bits != 0) {
+                    scores[(w << 6) + Long.numberOfTrailingZeros(bits)]++;
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return scores;
+    }
+
+    public double[][] toDense() {
+        double[][] data = new double[numPersons][numItems];
+        for (int p = 0; p < numPersons; p++) {
+            for (int i = 0; i < numItems; i++) {
+                data[p][i] = isObserved(p, i) ? get(p, i) : Double.NaN;
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        if (observed != null) {
+            return String.format("ResponseMatrix{persons=%d, items=%d, density=%.3f}", numPersons, numItems, getDensity());
+        }
+        return String.format("ResponseMatrix{persons=%d, items=%d}", numPersons, numItems);
+    }
+
+    public static final class Builder {
+        private final int numItems;
+        private final int wordsPerRow;
+        private long[] words;
+        private long[] observed;
+        private int numPersons;
+        private String[] itemNames;
+
+        private Builder(int numItems, int expectedPersons) {
+            if (numItems < 0) {
+                throw new IllegalArgumentException("Количество заданий не может быть отрицательным");
+            }
+            this.numItems = numItems;
+            this.wordsPerRow = ResponseMatrix.wordsPerRow(numItems);
+            this.words = new long[Math.max(1, expectedPersons) * Math.max(1, wordsPerRow)];
+        }
+
+        public int getNumItems() {
+            return numItems;
+        }
+
+        public int getNumPersons() {
+            return numPersons;
+        }
+
+        public Builder withItemNames(String[] names) {
+            if (names != null && names.length != numItems) {
+                throw new IllegalArgumentException("Количество названий заданий не совпадает с количеством заданий");
+            }
+            this.itemNames = names != null ? names.clone() : null;
+            return this;
+        }
+
+        public Builder addRow(boolean[] responses) {
+            return addRow(responses, null);
+        }
+
+        public Builder addRow(boolean[] responses, boolean[] observedCells) {
+            int offset = reserveRow();
+            int limit = Math.min(numItems, responses.length);
+            for (int i = 0; i < limit; i++) {
+                if (responses[i] && (observedCells == null || observedCells[i])) {
+                    words[offset + (i >>> 6)] |= 1L << i;
+                }
+            }
+            if (observedCells != null) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    long seen = 0;
+                    int end = Math.min(numItems, Math.min(observedCells.length, (w + 1) * WORD_BITS));
+                    for (int i = w * WORD_BITS; i < end; i++) {
+                        if (observedCells[i]) {
+                            seen |= 1L << i;
+                        }
+                    }
+                    setObserved(offset + w, seen, w);
+                }
+            }
+            numPersons++;
+            return this;
+        }
+
+        public Builder addRow(long[] packedRow) {
+            return addRow(packedRow, null);
+        }
+
+        public Builder addRow(long[] packedRow, long[] observedRow) {
+            int offset = reserveRow();
+            System.arraycopy(packedRow, 0, words, offset, Math.min(wordsPerRow, packedRow.length));
+            if (wordsPerRow > 0 && (numItems & 63) != 0) {
+                words[offset + wordsPerRow - 1] &= (1L << numItems) - 1;
+            }
+            if (observedRow != null) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    long seen = w < observedRow.length ? observedRow[w] : 0;
+                    words[offset + w] &= seen;
+                    setObserved(offset + w, seen, w);
+                }
+            }
+            numPersons++;
+            return this;
+        }
+
+        public Builder append(Builder other) {
+            if (other.numItems != numItems) {
+                throw new IllegalArgumentException("Количество заданий в блоках матрицы не совпадает");
+            }
+            ensureCapacity(numPersons + other.numPersons);
+            int offset = numPersons * wordsPerRow;
+            int length = other.numPersons * wordsPerRow;
+            System.arraycopy(other.words, 0, words, offset, length);
+            if (other.observed != null) {
+                allocateObserved(offset);
+                System.arraycopy(other.observed, 0, observed, offset, length);
+            } else if (observed != null) {
+                fillObserved(offset, offset + length);
+            }
+            numPersons += other.numPersons;
+            return this;
+        }
+
+        private int reserveRow() {
+            ensureCapacity(numPersons + 1);
+            int offset = numPersons * wordsPerRow;
+            if (observed != null) {
+                fillObserved(offset, offset + wordsPerRow);
+            }
+            return offset;
+        }
+
+        private void setObserved(int index, long seen, int wordIndex) {
+            long full = fullWord(numItems, wordIndex);
+            seen &= full;
+            if (observed == null) {
+                if (seen == full) {
+                    return;
+                }
+                allocateObserved((numPersons + 1) * wordsPerRow);
+            }
+            observed[index] = seen;
+        }
+
+        private void allocateObserved(int filled) {
+            if (observed == null) {
+                observed = new long[words.length];
+                fillObserved(0, filled);
+            }
+        }
+
+        private void fillObserved(int from, int to) {
+            for (int index = from; index < to; index++) {
+                observed[index] = fullWord(numItems, index % wordsPerRow);
+            }
+        }
+
+        private void ensureCapacity(int rows) {
+            long required = (long) rows * wordsPerRow;
+            if (required > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Матрица ответов слишком велика");
+            }
+            if (required > words.length) {
+                long grown = Math.max(required, (long) words.length * 2);
+                words = Arrays.copyOf(words, (int) Math.min(grown, Integer.MAX_VALUE - 8));
+                if (observed != null) {
+                    observed = Arrays.copyOf(observed, words.length);
+                }
+            }
+        }
+
+        public ResponseMatrix build() {
+            if (numPersons == 0 || numItems == 0) {
+                return EMPTY;
+            }
+            int length = numPersons * wordsPerRow;
+            long[] packed = words.length == length ? words : Arrays.copyOf(words, length);
+            long[] seen = observed == null || observed.length == length ? observed : Arrays.copyOf(observed, length);
+            ResponseMatrix matrix = new ResponseMatrix(numPersons, numItems, packed, seen, itemNames);
+            words = new long[0];
+            observed = null;
+            numPersons = 0;
+            return matrix;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package miroshka.rasch.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+final class ResponseMatrixCache {
+    private static final int MAGIC = 0x43584D52;
+    private static final int VERSION = 3;
+    private static final String EXTENSION = ".rmx";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int MODIFIED_OFFSET = 16;
+    private static final int FIXED_HEADER_SIZE = 56;
+    private static final long MAP_WINDOW = 1L << 30;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final int FINGERPRINT_BLOCK = 64 * 1024;
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final long TEMP_MAX_AGE = TimeUnit.DAYS.toMillis(1);
+
+    private final Path directory;
+    private final long maxBytes;
+
+    ResponseMatrixCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    ResponseMatrix load(File source) {
+        Path cacheFile = cacheFileFor(source);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < FIXED_HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, MAP_WINDOW));
+            header.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+            long sourceSize = header.getLong();
+            long sourceModified = header.getLong();
+            long sourceChecksum = header.getLong();
+            long sourceFingerprint = header.getLong();
+            int numPersons = header.getInt();
+            int numItems = header.getInt();
+            int namesCount = header.getInt();
+            int masked = header.getInt();
+            if (numPersons <= 0 || numItems <= 0 || (namesCount != 0 && namesCount != numItems)
+                    || (masked != 0 && masked != 1)) {
+                return null;
+            }
+
+            if (source.length() != sourceSize || fingerprint(source) != sourceFingerprint) {
+                return null;
+            }
+            long modified = source.lastModified();
+            boolean touched = modified != sourceModified;
+            if (touched && checksum(source) != sourceChecksum) {
+                return null;
+            }
+
+            String[] names = namesCount > 0 ? new String[namesCount] : null;
+            for (int i = 0; i < namesCount; i++) {
+                if (header.remaining() < Integer.BYTES) {
+                    return null;
+                }
+                int length = header.getInt();
+                if (length < 0 || length > header.remaining()) {
+                    return null;
+                }
+                byte[] bytes = new byte[length];
+                header.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            long dataOffset = align(header.position());
+            long wordCount = (long) numPersons * ResponseMatrix.wordsPerRow(numItems);
+            if (wordCount > Integer.MAX_VALUE - 8 || fileSize != dataOffset + (1 + masked) * wordCount * Long.BYTES) {
+                return null;
+            }
+
+            long[] words = readWords(channel, dataOffset, (int) wordCount);
+            long[] observed = masked != 0
+                ? readWords(channel, dataOffset + wordCount * Long.BYTES, (int) wordCount)
+                : null;
+
+            ResponseMatrix matrix = ResponseMatrix.fromWords(numPersons, numItems, words, observed, names);
+            if (touched) {
+                updateModified(cacheFile, modified);
+            }
+            markUsed(cacheFile);
+            System.out.println("Данные загружены из кэша: " + cacheFile.getFileName());
+            return matrix;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Не удалось прочитать кэш данных: " + e.getMessage());
+            return null;
+        }
+    }
+
+    void store(File source, ResponseMatrix matrix) {
+        if (matrix.isEmpty()) {
+            return;
+        }
+        if (sizeOf(matrix) > maxBytes) {
+            System.out.println("Данные слишком велики для кэша: " + source.getName());
+            return;
+        }
+        Path cacheFile = cacheFileFor(source);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(directory);
+            long sourceSize = source.length();
+            long sourceModified = source.lastModified();
+            long sourceChecksum = checksum(source);
+            long sourceFingerprint = fingerprint(source);
+
+            tempFile = Files.createTempFile(directory, "matrix", TEMP_EXTENSION);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                buffer.putLong(sourceSize);
+                buffer.putLong(sourceModified);
+                buffer.putLong(sourceChecksum);
+                buffer.putLong(sourceFingerprint);
+                buffer.putInt(matrix.getNumPersons());
+                buffer.putInt(matrix.getNumItems());
+                buffer.putInt(matrix.hasItemNames() ? matrix.getNumItems() : 0);
+                buffer.putInt(matrix.hasMissing() ? 1 : 0);
+
+                long written = 0;
+                if (matrix.hasItemNames()) {
+                    for (String name : matrix.getItemNames()) {
+                        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                        if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                            written += flush(channel, buffer);
+                        }
+                        if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                            throw new IOException("Название задания слишком длинное");
+                        }
+                        buffer.putInt(bytes.length);
+                        buffer.put(bytes);
+                    }
+                }
+                while ((written + buffer.position()) % Long.BYTES != 0) {
+                    buffer.put((byte) 0);
+                }
+
+                writeWords(channel, buffer, matrix.words());
+                if (matrix.hasMissing()) {
+                    writeWords(channel, buffer, matrix.observedWords());
+                }
+                flush(channel, buffer);
+            }
+
+            try {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+            evict(cacheFile);
+        } catch (IOException e) {
+            System.out.println("Не удалось сохранить кэш данных: " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void evict(Path keep) {
+        long now = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long used = Files.getLastModifiedTime(file).toMillis();
+                if (name.endsWith(TEMP_EXTENSION)) {
+                    if (now - used > TEMP_MAX_AGE) {
+                        Files.deleteIfExists(file);
+                    }
+                } else if (name.endsWith(EXTENSION) && !file.equals(keep)) {
+                    entries.add(new Entry(file, used, Files.size(file)));
+                }
+            }
+
+            entries.sort(Comparator.comparingLong((Entry entry) -> entry.used).reversed());
+            long total = Files.size(keep);
+            int removed = 0;
+            for (Entry entry : entries) {
+                if (now - entry.used > MAX_AGE || total + entry.size > maxBytes) {
+                    Files.deleteIfExists(entry.file);
+                    removed++;
+                } else {
+                    total += entry.size;
+                }
+            }
+            if (removed > 0) {
+                System.out.println("Удалено устаревших файлов кэша: " + removed);
+            }
+        } catch (IOException e) {
+            System.out.println("Не удалось очистить кэш данных: " + e.getMessage());
+        }
+    }
+
+    static long sizeOf(ResponseMatrix matrix) {
+        long size = FIXED_HEADER_SIZE;
+        if (matrix.hasItemNames()) {
+            for (String name : matrix.getItemNames()) {
+                size += Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        long words = (long) matrix.getNumPersons() * matrix.getWordsPerRow();
+        return align(size) + (matrix.hasMissing() ? 2 : 1) * words * Long.BYTES;
+    }
+
+    private static void markUsed(Path cacheFile) {
+        try {
+            Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static long[] readWords(FileChannel channel, long offset, int wordCount) throws IOException {
+        long[] words = new long[wordCount];
+        int copied = 0;
+        long position = offset;
+        while (copied < words.length) {
+            long length = Math.min(MAP_WINDOW, (long) (words.length - copied) * Long.BYTES);
+            LongBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, position, length)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asLongBuffer();
+            int count = data.remaining();
+            data.get(words, copied, count);
+            copied += count;
+            position += length;
+        }
+        return words;
+    }
+
+    private static void writeWords(FileChannel channel, ByteBuffer buffer, long[] words) throws IOException {
+        for (long word : words) {
+            if (buffer.remaining() < Long.BYTES) {
+                flush(channel, buffer);
+            }
+            buffer.putLong(word);
+        }
+    }
+
+    private static void updateModified(Path cacheFile, long modified) {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(0, modified);
+            channel.write(buffer, MODIFIED_OFFSET);
+        } catch (IOException e) {
+            System.out.println("Не удалось обновить кэш данных: " + e.getMessage());
+        }
+    }
+
+    private Path cacheFileFor(File source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(source.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash, 0, 16) + EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
+
+    static long checksum(File source) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    static long fingerprint(File source) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer block = ByteBuffer.allocate(FINGERPRINT_BLOCK);
+            readBlock(channel, 0, block);
+            crc.update(block);
+            if (size > FINGERPRINT_BLOCK) {
+                readBlock(channel, Math.max(FINGERPRINT_BLOCK, size - FINGERPRINT_BLOCK), block);
+                crc.update(block);
+            }
+            crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, size));
+        }
+        return crc.getValue();
+    }
+
+    private static void readBlock(FileChannel channel, long position, ByteBuffer block) throws IOException {
+        block.clear();
+        while (block.hasRemaining()) {
+            int read = channel.read(block, position + block.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        block.flip();
+    }
+
+    private static int flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return length;
+    }
+
+    private static long align(long position) {
+        return (position + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private static final class Entry {
+        final Path file;
+        final long used;
+        final long size;
+
+        Entry(Path file, long used, long size) {
+            this.file = file;
+            this.used = used;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class ResponsePatterns {
+    private final ResponseMatrix patterns;
+    private final int[] counts;
+    private final int[] representatives;
+    private final int[] patternOfPerson;
+
+    private ResponsePatterns(ResponseMatrix patterns, int[] counts, int[] representatives, int[] patternOfPerson) {
+        this.patterns = patterns;
+        this.counts = counts;
+        this.representatives = representatives;
+        this.patternOfPerson = patternOfPerson;
+    }
+
+    static ResponsePatterns fromMatrix(ResponseMatrix data) {
+        int numPersons = data.getNumPersons();
+        int wordsPerRow = data.getWordsPerRow();
+        long[] words = data.words();
+        long[] observed = data.observedWords();
+
+        RowTable table = new RowTable(numPersons);
+        RowTable.Rows sameRows = (row, other) -> {
+            int from = row * wordsPerRow;
+            int to = other * wordsPerRow;
+            return Arrays.equals(words, from, from + wordsPerRow, words, to, to + wordsPerRow)
+                && (observed == null
+                || Arrays.equals(observed, from, from + wordsPerRow, observed, to, to + wordsPerRow));
+        };
+        int[] patternOfPerson = new int[numPersons];
+        for (int p = 0; p < numPersons; p++) {
+            int offset = p * wordsPerRow;
+            int hash = RowTable.hash(0, words, offset, wordsPerRow)
+                ^ (observed != null ? 31 * RowTable.hash(0, observed, offset, wordsPerRow) : 0);
+            patternOfPerson[p] = table.add(hash, p, sameRows);
+        }
+
+        int numPatterns = table.size();
+        int[] representatives = table.getRepresentatives();
+        long[] uniqueWords = new long[numPatterns * wordsPerRow];
+        long[] uniqueObserved = observed != null ? new long[uniqueWords.length] : null;
+        for (int pattern = 0; pattern < numPatterns; pattern++) {
+            int offset = representatives[pattern] * wordsPerRow;
+            System.arraycopy(words, offset, uniqueWords, pattern * wordsPerRow, wordsPerRow);
+            if (observed != null) {
+                System.arraycopy(observed, offset, uniqueObserved, pattern * wordsPerRow, wordsPerRow);
+            }
+        }
+
+        ResponseMatrix patterns = ResponseMatrix.fromWords(numPatterns, data.getNumItems(), uniqueWords,
+            uniqueObserved, null);
+        return new ResponsePatterns(patterns, table.getCounts(), representatives, patternOfPerson);
+    }
+
+    int size() {
+        return counts.length;
+    }
+
+    ResponseMatrix getPatterns() {
+        return patterns;
+    }
+
+    int[] getCounts() {
+        return counts;
+    }
+
+    int representativeOf(int pattern) {
+        return representatives[pattern];
+    }
+
+    int patternOf(int person) {
+        return patternOfPerson[person];
+    }
+
+    double[] expand(double[] patternValues) {
+        double[] values = new double[patternOfPerson.length];
+        for (int p = 0; p < values.length; p++) {
+            values[p] = patternValues[patternOfPerson[p]];
+        }
+        return values;
+    }
+
+    double[] collapse(double[] values) {
+        double[] sums = new double[counts.length];
+        for (int p = 0; p < values.length; p++) {
+            sums[patternOfPerson[p]] += values[p];
+        }
+        for (int k = 0; k < sums.length; k++) {
+            sums[k] /= counts[k];
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,42 @@
+package miroshka.rasch.logic;
+
+interface RowKernel {
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String VECTOR_KERNEL = "miroshka.rasch.logic.VectorRowKernel";
+
+    void probabilities(double ability, double[] difficulties, double[] probabilities);
+
+    void probabilities(double ability, double[] difficulties, int[] items, int from, int to, double[] probabilities);
+
+    double expectedScore(double ability, double weight, double[] difficulties, double[] itemSums);
+
+    double expectedScore(double ability, double weight, double[] difficulties, long[] observed, int offset,
+                         double[] itemSums);
+
+    void accumulateFit(double[] probabilities, ResponseMatrix data, int person, int weight,
+                       ProbabilityKernel.FitSums personSums, ProbabilityKernel.FitSums itemSums);
+
+    static RowKernel create(EstimationSettings settings) {
+        if (settings.getKernel() == EstimationSettings.Kernel.VECTOR) {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+                System.out.println("Module " + VECTOR_MODULE + " is not available, using the scalar kernel.");
+            } else {
+                try {
+                    RowKernel kernel = (RowKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+                    if (settings.getLogistic() == EstimationSettings.Logistic.TABULATED) {
+                        System.out.println("Vector kernel computes the exact logistic, the tabulated logistic is ignored.");
+                    }
+                    return kernel;
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    System.out.println("Vector kernel is not available (" + e + "), using the scalar kernel.");
+                }
+            }
+        }
+        if (settings.getLogistic() != EstimationSettings.Logistic.TABULATED) {
+            return new ScalarRowKernel(null);
+        }
+        LogisticTable table = LogisticTable.forTolerance(settings.getLogisticTolerance());
+        System.out.println("Logistic table: " + table.size() + " intervals, max error " + table.getMaxError() + ".");
+        return new ScalarRowKernel(table);
+    }
+}
@@ -0,0 +1,83 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class RowTable {
+    static final int MAX_CAPACITY = 1 << 30;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    interface Rows {
+        boolean same(int row, int other);
+    }
+
+    private final int[] slots;
+    private final int mask;
+    private final int numRows;
+    private int[] representatives;
+    private int[] counts;
+    private int size;
+
+    RowTable(int numRows) {
+        long capacity = Long.highestOneBit(Math.max(2L, numRows) * 2 - 1) << 1;
+        this.slots = new int[(int) Math.min(capacity, MAX_CAPACITY)];
+        this.mask = slots.length - 1;
+        this.numRows = numRows;
+        this.representatives = new int[Math.max(1, Math.min(numRows, 1024))];
+        this.counts = new int[representatives.length];
+        Arrays.fill(slots, -1);
+    }
+
+    int add(int hash, int row, Rows rows) {
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry < 0) {
+                if (size == mask) {
+                    throw new IllegalStateException("Слишком много различных строк для хеш-таблицы: " + size);
+                }
+                if (size == counts.length) {
+                    int grown = (int) Math.min((long) counts.length * 2, numRows);
+                    representatives = Arrays.copyOf(representatives, grown);
+                    counts = Arrays.copyOf(counts, grown);
+                }
+                entry = size++;
+                representatives[entry] = row;
+                slots[slot] = entry;
+            } else if (!rows.same(representatives[entry], row)) {
+                slot = (slot + 1) & mask;
+                continue;
+            }
+            counts[entry]++;
+            return entry;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] getRepresentatives() {
+        return Arrays.copyOf(representatives, size);
+    }
+
+    int[] getCounts() {
+        return Arrays.copyOf(counts, size);
+    }
+
+    static long mix(long hash, long word) {
+        hash = (hash + word) * GOLDEN_RATIO;
+        return hash ^ (hash >>> 29);
+    }
+
+    static int fold(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    static int hash(long seed, long[] words, int offset, int length) {
+        long hash = seed;
+        for (int w = 0; w < length; w++) {
+            hash = mix(hash, words[offset + w]);
+        }
+        return fold(hash);
+    }
+}
@@ -0,0 +1,112 @@
+package miroshka.rasch.logic;
+
+final class ScalarRowKernel implements RowKernel {
+    private final LogisticTable table;
+
+    ScalarRowKernel(LogisticTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public void probabilities(double ability, double[] difficulties, double[] probabilities) {
+        if (table != null) {
+            for (int i = 0; i < difficulties.length; i++) {
+                probabilities[i] = table.probability(ability, difficulties[i]);
+            }
+        } else {
+            for (int i = 0; i < difficulties.length; i++) {
+                probabilities[i] = ProbabilityKernel.probability(ability, difficulties[i]);
+            }
+        }
+    }
+
+    @Override
+    public void probabilities(double ability, double[] difficulties, int[] items, int from, int to,
+                              double[] probabilities) {
+        for (int k = from; k < to; k++) {
+            double difficulty = difficulties[items[k]];
+            probabilities[k - from] = table != null
+                ? table.probability(ability, difficulty)
+                : ProbabilityKernel.probability(ability, difficulty);
+        }
+    }
+
+    @Override
+    public double expectedScore(double ability, double weight, double[] difficulties, double[] itemSums) {
+        double sumProb = 0;
+        for (int i = 0; i < difficulties.length; i++) {
+            double prob = table != null
+                ? table.probability(ability, difficulties[i])
+                : ProbabilityKernel.probability(ability, difficulties[i]);
+            sumProb += prob;
+            itemSums[i] += weight * prob;
+        }
+        return sumProb;
+    }
+
+    @Override
+    public double expectedScore(double ability, double weight, double[] difficulties, long[] observed, int offset,
+                                double[] itemSums) {
+        int wordsPerRow = ResponseMatrix.wordsPerRow(difficulties.length);
+        double sumProb = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long bits = observed[offset + w];
+            while (bits != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                double prob = table != null
+                    ? table.probability(ability, difficulties[i])
+                    : ProbabilityKernel.probability(ability, difficulties[i]);
+                sumProb += prob;
+                itemSums[i] += weight * prob;
+                bits &= bits - 1;
+            }
+        }
+        return sumProb;
+    }
+
+    @Override
+    public void accumulateFit(double[] probabilities, ResponseMatrix data, int person, int weight,
+                              ProbabilityKernel.FitSums personSums, ProbabilityKernel.FitSums itemSums) {
+        accumulateFit(probabilities, data, person, weight, personSums, itemSums, 0);
+    }
+
+    static void accumulateFit(double[] probabilities, ResponseMatrix data, int person, int weight,
+                              ProbabilityKernel.FitSums personSums, ProbabilityKernel.FitSums itemSums, int from) {
+        long word = from < probabilities.length ? data.word(person, from >>> 6) : 0;
+        long seen = from < probabilities.length ? data.observedWord(person, from >>> 6) : 0;
+        for (int i = from; i < probabilities.length; i++) {
+            if ((i & 63) == 0) {
+                word = data.word(person, i >>> 6);
+                seen = data.observedWord(person, i >>> 6);
+            }
+            if ((seen >>> i & 1L) == 0) continue;
+            double prob = probabilities[i];
+            double variance = prob * (1.0 - prob);
+            if (variance < ProbabilityKernel.MIN_VARIANCE) continue;
+
+            double residual = ((word >>> i) & 1L) - prob;
+            double residualSq = residual * residual;
+            double stdResidualSq = residualSq / variance;
+
+            personSums.add(person, residualSq, stdResidualSq, variance);
+            itemSums.add(i, residualSq, stdResidualSq, variance, weight);
+        }
+    }
+
+    static void accumulateFit(double[] probabilities, ResponseMatrix data, int person, int[] items, int from, int to,
+                              int weight, ProbabilityKernel.FitSums personSums, ProbabilityKernel.FitSums itemSums) {
+        for (int k = from; k < to; k++) {
+            int i = items[k];
+            double prob = probabilities[k - from];
+            double variance = prob * (1.0 - prob);
+            if (variance < ProbabilityKernel.MIN_VARIANCE) continue;
+
+            double residual = data.get(person, i) - prob;
+            double residualSq = residual * residual;
+            double stdResidualSq = residualSq / variance;
+
+            personSums.add(person, residualSq, stdResidualSq, variance);
+            itemSums.add(i, residualSq, stdResidualSq, variance, weight);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+
+final class ScoreGroups {
+    private final int[] scores;
+    private final int[] counts;
+    private final int[] groupOfPerson;
+    private final int[] representatives;
+
+    private ScoreGroups(int[] scores, int[] counts, int[] groupOfPerson, int[] representatives) {
+        this.scores = scores;
+        this.counts = counts;
+        this.groupOfPerson = groupOfPerson;
+        this.representatives = representatives;
+    }
+
+    static ScoreGroups fromMatrix(ResponseMatrix data, int[] rawScores) {
+        if (!data.hasMissing()) {
+            return fromRawScores(rawScores, data.getNumItems());
+        }
+
+        int numPersons = data.getNumPersons();
+        int wordsPerRow = data.getWordsPerRow();
+        long[] observed = data.observedWords();
+        RowTable table = new RowTable(numPersons);
+        RowTable.Rows sameRows = (row, other) -> {
+            int from = row * wordsPerRow;
+            int to = other * wordsPerRow;
+            return rawScores[row] == rawScores[other]
+                && Arrays.equals(observed, from, from + wordsPerRow, observed, to, to + wordsPerRow);
+        };
+        int[] groupOfPerson = new int[numPersons];
+        for (int p = 0; p < numPersons; p++) {
+            groupOfPerson[p] = table.add(RowTable.hash(rawScores[p], observed, p * wordsPerRow, wordsPerRow), p,
+                sameRows);
+        }
+
+        int[] representatives = table.getRepresentatives();
+        int[] scores = new int[representatives.length];
+        for (int group = 0; group < scores.length; group++) {
+            scores[group] = rawScores[representatives[group]];
+        }
+        return new ScoreGroups(scores, table.getCounts(), groupOfPerson, representatives);
+    }
+
+    static ScoreGroups fromRawScores(int[] rawScores, int numItems) {
+        int[] countByScore = new int[numItems + 1];
+        for (int score : rawScores) {
+            countByScore[score]++;
+        }
+
+        int[] groupByScore = new int[numItems + 1];
+        int numGroups = 0;
+        for (int score = 0; score <= numItems; score++) {
+            groupByScore[score] = countByScore[score] > 0 ? numGroups++ : -1;
+        }
+
+        int[] scores = new int[numGroups];
+        int[] counts = new int[numGroups];
+        for (int score = 0; score <= numItems; score++) {
+            int group = groupByScore[score];
+            if (group >= 0) {
+                scores[group] = score;
+                counts[group] = countByScore[score];
+            }
+        }
+
+        int[] groupOfPerson = new int[rawScores.length];
+        for (int p = 0; p < rawScores.length; p++) {
+            groupOfPerson[p] = groupByScore[rawScores[p]];
+        }
+        return new ScoreGroups(scores, counts, groupOfPerson, null);
+    }
+
+    int size() {
+        return scores.length;
+    }
+
+    int[] getScores() {
+        return scores;
+    }
+
+    int[] getCounts() {
+        return counts;
+    }
+
+    int[] getRepresentatives() {
+        return representatives;
+    }
+
+    int groupOf(int person) {
+        return groupOfPerson[person];
+    }
+
+    double[] expand(double[] groupValues) {
+        double[] values = new double[groupOfPerson.length];
+        for (int p = 0; p < values.length; p++) {
+            values[p] = groupValues[groupOfPerson[p]];
+        }
+        return values;
+    }
+
+    double[] collapse(double[] values) {
+        double[] sums = new double[counts.length];
+        for (int p = 0; p < values.length; p++) {
+            sums[groupOfPerson[p]] += values[p];
+        }
+        for (int k = 0; k < sums.length; k++) {
+            sums[k] /= counts[k];
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,103 @@
+package miroshka.rasch.logic;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class ScoreTable {
+    private static final int CACHE_SIZE = 32;
+    private static final Map<Key, ScoreTable> CACHE = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ScoreTable> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final PersonScorer.Estimator estimator;
+    private final double[] abilities;
+    private final double[] standardErrors;
+
+    ScoreTable(PersonScorer.Estimator estimator, double[] abilities, double[] standardErrors) {
+        this.estimator = estimator;
+        this.abilities = abilities;
+        this.standardErrors = standardErrors;
+    }
+
+    public static ScoreTable forDifficulties(double[] difficulties) {
+        return forDifficulties(difficulties, PersonScorer.Estimator.WLE);
+    }
+
+    public static ScoreTable forDifficulties(double[] difficulties, PersonScorer.Estimator estimator) {
+        PersonScorer.validate(difficulties);
+        PersonScorer.Estimator resolved = estimator != null ? estimator : PersonScorer.Estimator.WLE;
+        if (resolved == PersonScorer.Estimator.EAP) {
+            throw new IllegalArgumentException("Оценки EAP доступны только для маргинального метода (MML)");
+        }
+        Key key = new Key(difficulties, resolved);
+        synchronized (CACHE) {
+            return CACHE.computeIfAbsent(key, k -> PersonScorer.tabulate(k.difficulties, k.estimator));
+        }
+    }
+
+    public PersonScorer.Estimator getEstimator() {
+        return estimator;
+    }
+
+    public int getMaxScore() {
+        return abilities.length - 1;
+    }
+
+    public double getAbility(int rawScore) {
+        checkScore(rawScore);
+        return abilities[rawScore];
+    }
+
+    public double getStandardError(int rawScore) {
+        checkScore(rawScore);
+        return standardErrors[rawScore];
+    }
+
+    public double[] getAbilities() {
+        return abilities.clone();
+    }
+
+    public double[] getStandardErrors() {
+        return standardErrors.clone();
+    }
+
+    private void checkScore(int rawScore) {
+        if (rawScore < 0 || rawScore >= abilities.length) {
+            throw new IndexOutOfBoundsException("Сырой балл вне диапазона: " + rawScore);
+        }
+    }
+
+    private static final class Key {
+        final double[] difficulties;
+        final PersonScorer.Estimator estimator;
+        final int hash;
+
+        Key(double[] difficulties, PersonScorer.Estimator estimator) {
+            this.difficulties = difficulties.clone();
+            this.estimator = estimator;
+            long hash = estimator.ordinal();
+            for (double difficulty : difficulties) {
+                hash = RowTable.mix(hash, Double.doubleToLongBits(difficulty));
+            }
+            this.hash = RowTable.fold(hash);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return key.hash == hash && key.estimator == estimator && Arrays.equals(key.difficulties, difficulties);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package miroshka.rasch.logic;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+public final class SyntheticDataGenerator {
+    private static final byte MISSING = -1;
+    private static final byte SEPARATOR = ';';
+    private static final int XLSX_WINDOW_ROWS = 100;
+
+    private final int numPersons;
+    private final int numItems;
+    private final long seed;
+    private final Distribution abilityDistribution;
+    private final Distribution difficultyDistribution;
+    private final double[] fixedDifficulties;
+    private final double missingRate;
+    private final double misfitRate;
+
+    private SyntheticDataGenerator(Builder builder) {
+        this.numPersons = builder.numPersons;
+        this.numItems = builder.numItems;
+        this.seed = builder.seed;
+        this.abilityDistribution = builder.abilityDistribution;
+        this.difficultyDistribution = builder.difficultyDistribution;
+        this.fixedDifficulties = builder.fixedDifficulties;
+        this.missingRate = builder.missingRate;
+        this.misfitRate = builder.misfitRate;
+    }
+
+    public int getNumPersons() {
+        return numPersons;
+    }
+
+    public int getNumItems() {
+        return numItems;
+    }
+
+    public double[] getItemDifficulties() {
+        return generateDifficulties(new SplittableRandom(seed));
+    }
+
+    public SyntheticDataset generateDataset() {
+        double[] abilities = new double[numPersons];
+        boolean[] misfitting = new boolean[numPersons];
+        ResponseMatrix.Builder builder = ResponseMatrix.builder(numItems);
+        boolean[] responses = new boolean[numItems];
+        boolean[] observed = new boolean[numItems];
+
+        double[] difficulties = generate((person, ability, misfit, row) -> {
+            abilities[person] = ability;
+            misfitting[person] = misfit;
+            for (int i = 0; i < numItems; i++) {
+                responses[i] = row[i] == 1;
+                observed[i] = row[i] != MISSING;
+            }
+            builder.addRow(responses, observed);
+        });
+        return new SyntheticDataset(builder.build(), abilities, difficulties, misfitting);
+    }
+
+    public ResponseMatrix generateMatrix() {
+        return generateDataset().getResponses();
+    }
+
+    public void writeCsv(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            StringBuilder header = new StringBuilder("ID");
+            for (int i = 1; i <= numItems; i++) {
+                header.append(';').append('Q').append(i);
+            }
+            header.append('\n');
+            out.write(header.toString().getBytes(StandardCharsets.UTF_8));
+
+            byte[] line = new byte[20 + numItems * 2];
+            generate((person, ability, misfit, row) -> {
+                int length = writeId(line, person + 1);
+                for (int i = 0; i < numItems; i++) {
+                    line[length++] = SEPARATOR;
+                    if (row[i] != MISSING) {
+                        line[length++] = (byte) ('0' + row[i]);
+                    }
+                }
+                line[length++] = '\n';
+                try {
+                    out.write(line, 0, length);
+                } catch (IOException e) {
+                    throw new SyntheticDataException(e);
+                }
+            });
+        } catch (SyntheticDataException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void writeXlsx(File file) throws IOException {
+        int maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+        if (numPersons > maxRows) {
+            throw new IllegalArgumentException("Формат XLSX поддерживает не более " + maxRows + " строк данных");
+        }
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_ROWS);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            Sheet sheet = workbook.createSheet("Данные");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("ID");
+            for (int i = 1; i <= numItems; i++) {
+                header.createCell(i).setCellValue("Q" + i);
+            }
+
+            generate((person, ability, misfit, values) -> {
+                Row row = sheet.createRow(person + 1);
+                row.createCell(0).setCellValue(person + 1);
+                for (int i = 0; i < numItems; i++) {
+                    if (values[i] != MISSING) {
+                        row.createCell(i + 1).setCellValue(values[i]);
+                    }
+                }
+            });
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private double[] generate(RowConsumer consumer) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] difficulties = generateDifficulties(random);
+
+        byte[] row = new byte[numItems];
+        for (int p = 0; p < numPersons; p++) {
+            double ability = abilityDistribution.sample(random);
+            boolean misfit = misfitRate > 0 && random.nextDouble() < misfitRate;
+            for (int i = 0; i < numItems; i++) {
+                if (missingRate > 0 && random.nextDouble() < missingRate) {
+                    row[i] = MISSING;
+                    continue;
+                }
+                double prob = misfit ? 0.5 : ProbabilityKernel.probability(ability, difficulties[i]);
+                row[i] = (byte) (random.nextDouble() < prob ? 1 : 0);
+            }
+            consumer.accept(p, ability, misfit, row);
+        }
+        return difficulties;
+    }
+
+    private double[] generateDifficulties(SplittableRandom random) {
+        if (fixedDifficulties != null) {
+            return fixedDifficulties.clone();
+        }
+        double[] difficulties = new double[numItems];
+        for (int i = 0; i < numItems; i++) {
+            difficulties[i] = difficultyDistribution.sample(random);
+        }
+        return difficulties;
+    }
+
+    private static int writeId(byte[] line, int id) {
+        int digits = 1;
+        for (int rest = id / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int pos = digits - 1; pos >= 0; pos--) {
+            line[pos] = (byte) ('0' + id % 10);
+            id /= 10;
+        }
+        return digits;
+    }
+
+    public static Builder builder(int numPersons, int numItems) {
+        return new Builder(numPersons, numItems);
+    }
+
+    @FunctionalInterface
+    public interface Distribution {
+        double sample(RandomGenerator random);
+
+        static Distribution normal(double mean, double standardDeviation) {
+            return random -> mean + standardDeviation * random.nextGaussian();
+        }
+
+        static Distribution uniform(double min, double max) {
+            return random -> min + (max - min) * random.nextDouble();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(int person, double ability, boolean misfit, byte[] row);
+    }
+
+    private static final class SyntheticDataException extends RuntimeException {
+        SyntheticDataException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    public static final class SyntheticDataset {
+        private final ResponseMatrix responses;
+        private final double[] abilities;
+        private final double[] difficulties;
+        private final boolean[] misfitting;
+
+        private SyntheticDataset(ResponseMatrix responses, double[] abilities, double[] difficulties, boolean[] misfitting) {
+            this.responses = responses;
+            this.abilities = abilities;
+            this.difficulties = difficulties;
+            this.misfitting = misfitting;
+        }
+
+        public ResponseMatrix getResponses() {
+            return responses;
+        }
+
+        public double[] getAbilities() {
+            return abilities;
+        }
+
+        public double[] getDifficulties() {
+            return difficulties;
+        }
+
+        public boolean[] getMisfitting() {
+            return misfitting;
+        }
+    }
+
+    public static final class Builder {
+        private final int numPersons;
+        private final int numItems;
+        private long seed = 1L;
+        private Distribution abilityDistribution = Distribution.normal(0, 1);
+        private Distribution difficultyDistribution = Distribution.normal(0, 1);
+        private double[] fixedDifficulties;
+        private double missingRate;
+        private double misfitRate;
+
+        private Builder(int numPersons, int numItems) {
+            if (numPersons <= 0 || numItems <= 0) {
+                throw new IllegalArgumentException("Количество студентов и заданий должно быть положительным");
+            }
+            this.numPersons = numPersons;
+            this.numItems = numItems;
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder withAbilityDistribution(Distribution distribution) {
+            this.abilityDistribution = requireDistribution(distribution);
+            return this;
+        }
+
+        public Builder withDifficultyDistribution(Distribution distribution) {
+            this.difficultyDistribution = requireDistribution(distribution);
+            this.fixedDifficulties = null;
+            return this;
+        }
+
+        public Builder withItemDifficulties(double[] difficulties) {
+            if (difficulties == null || difficulties.length != numItems) {
+                throw new IllegalArgumentException("Количество трудностей должно совпадать с количеством заданий");
+            }
+            this.fixedDifficulties = difficulties.clone();
+            return this;
+        }
+
+        public Builder withMissingRate(double missingRate) {
+            this.missingRate = requireRate(missingRate, "Доля пропусков");
+            return this;
+        }
+
+        public Builder withMisfitRate(double misfitRate) {
+            this.misfitRate = requireRate(misfitRate, "Доля неподходящих студентов");
+            return this;
+        }
+
+        private static Distribution requireDistribution(Distribution distribution) {
+            if (distribution == null) {
+                throw new IllegalArgumentException("Распределение не может быть null");
+            }
+            return distribution;
+        }
+
+        private static double requireRate(double rate, String name) {
+            if (Double.isNaN(rate) || rate < 0 || rate >= 1) {
+                throw new IllegalArgumentException(name + " должна быть в диапазоне [0, 1)");
+            }
+            return rate;
+        }
+
+        public SyntheticDataGenerator build() {
+            return new SyntheticDataGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package miroshka.rasch.logic;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorRowKernel implements RowKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final DoubleVector ZERO = DoubleVector.zero(SPECIES);
+    private static final DoubleVector ONE = DoubleVector.broadcast(SPECIES, 1.0);
+
+    VectorRowKernel() {
+        System.out.println("Vector kernel: " + LANES + " x double lanes.");
+    }
+
+    private static DoubleVector probabilities(double ability, double[] difficulties, int offset) {
+        return probabilities(ability, DoubleVector.fromArray(SPECIES, difficulties, offset));
+    }
+
+    private static DoubleVector probabilities(double ability, DoubleVector difficulties) {
+        DoubleVector negativeLogit = difficulties
+            .sub(ability)
+            .max(-ProbabilityKernel.LOGIT_LIMIT)
+            .min(ProbabilityKernel.LOGIT_LIMIT);
+        return ONE.div(ONE.add(negativeLogit.lanewise(VectorOperators.EXP)));
+    }
+
+    @Override
+    public void probabilities(double ability, double[] difficulties, double[] probabilities) {
+        int length = difficulties.length;
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            probabilities(ability, difficulties, i).intoArray(probabilities, i);
+        }
+        for (; i < length; i++) {
+            probabilities[i] = ProbabilityKernel.probability(ability, difficulties[i]);
+        }
+    }
+
+    @Override
+    public void probabilities(double ability, double[] difficulties, int[] items, int from, int to,
+                              double[] probabilities) {
+        int length = to - from;
+        int bound = SPECIES.loopBound(length);
+        int k = 0;
+        for (; k < bound; k += LANES) {
+            probabilities(ability, DoubleVector.fromArray(SPECIES, difficulties, 0, items, from + k))
+                .intoArray(probabilities, k);
+        }
+        for (; k < length; k++) {
+            probabilities[k] = ProbabilityKernel.probability(ability, difficulties[items[from + k]]);
+        }
+    }
+
+    @Override
+    public double expectedScore(double ability, double weight, double[] difficulties, double[] itemSums) {
+        int length = difficulties.length;
+        int bound = SPECIES.loopBound(length);
+        DoubleVector sum = ZERO;
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector prob = probabilities(ability, difficulties, i);
+            sum = sum.add(prob);
+            DoubleVector.fromArray(SPECIES, itemSums, i).add(prob.mul(weight)).intoArray(itemSums, i);
+        }
+        double sumProb = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double prob = ProbabilityKernel.probability(ability, difficulties[i]);
+            sumProb += prob;
+            itemSums[i] += weight * prob;
+        }
+        return sumProb;
+    }
+
+    @Override
+    public double expectedScore(double ability, double weight, double[] difficulties, long[] observed, int offset,
+                                double[] itemSums) {
+        int length = difficulties.length;
+        int bound = SPECIES.loopBound(length);
+        DoubleVector sum = ZERO;
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            VectorMask<Double> seen = VectorMask.fromLong(SPECIES, observed[offset + (i >>> 6)] >>> (i & 63));
+            if (!seen.anyTrue()) continue;
+            DoubleVector prob = ZERO.blend(probabilities(ability, difficulties, i), seen);
+            sum = sum.add(prob);
+            DoubleVector.fromArray(SPECIES, itemSums, i).add(prob.mul(weight)).intoArray(itemSums, i);
+        }
+        double sumProb = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            if ((observed[offset + (i >>> 6)] >>> i & 1L) == 0) continue;
+            double prob = ProbabilityKernel.probability(ability, difficulties[i]);
+            sumProb += prob;
+            itemSums[i] += weight * prob;
+        }
+        return sumProb;
+    }
+
+    @Override
+    public void accumulateFit(double[] probabilities, ResponseMatrix data, int person, int weight,
+                              ProbabilityKernel.FitSums personSums, ProbabilityKernel.FitSums itemSums) {
+        int length = probabilities.length;
+        int bound = SPECIES.loopBound(length);
+        DoubleVector residualTotal = ZERO;
+        DoubleVector stdResidualTotal = ZERO;
+        DoubleVector varianceTotal = ZERO;
+        DoubleVector varianceSqTotal = ZERO;
+        boolean missing = data.hasMissing();
+        int count = 0;
+        for (int i = 0; i < bound; i += LANES) {
+            DoubleVector prob = DoubleVector.fromArray(SPECIES, probabilities, i);
+            DoubleVector variance = prob.mul(ONE.sub(prob));
+            VectorMask<Double> valid = variance.compare(VectorOperators.GE, ProbabilityKernel.MIN_VARIANCE);
+            if (missing) {
+                valid = valid.and(VectorMask.fromLong(SPECIES, data.observedWord(person, i >>> 6) >>> (i & 63)));
+            }
+            VectorMask<Double> correct = VectorMask.fromLong(SPECIES, data.word(person, i >>> 6) >>> (i & 63));
+            DoubleVector residual = ZERO.blend(ONE, correct).sub(prob);
+            DoubleVector residualSq = ZERO.blend(residual.mul(residual), valid);
+            DoubleVector stdResidualSq = ZERO.blend(residualSq.div(variance), valid);
+            variance = ZERO.blend(variance, valid);
+
+            residualTotal = residualTotal.add(residualSq);
+            stdResidualTotal = stdResidualTotal.add(stdResidualSq);
+            DoubleVector varianceSq = variance.mul(variance);
+            varianceTotal = varianceTotal.add(variance);
+            varianceSqTotal = varianceSqTotal.add(varianceSq);
+            DoubleVector.fromArray(SPECIES, itemSums.sumResidualSq, i)
+                .add(residualSq.mul(weight)).intoArray(itemSums.sumResidualSq, i);
+            DoubleVector.fromArray(SPECIES, itemSums.sumStdResidualSq, i)
+                .add(stdResidualSq.mul(weight)).intoArray(itemSums.sumStdResidualSq, i);
+            DoubleVector.fromArray(SPECIES, itemSums.sumVariance, i)
+                .add(variance.mul(weight)).intoArray(itemSums.sumVariance, i);
+            DoubleVector.fromArray(SPECIES, itemSums.sumVarianceSq, i)
+                .add(varianceSq.mul(weight)).intoArray(itemSums.sumVarianceSq, i);
+
+            long validBits = valid.toLong();
+            count += Long.bitCount(validBits);
+            while (validBits != 0) {
+                itemSums.count[i + Long.numberOfTrailingZeros(validBits)] += weight;
+                validBits &= validBits - 1;
+            }
+        }
+        personSums.sumResidualSq[person] += residualTotal.reduceLanes(VectorOperators.ADD);
+        personSums.sumStdResidualSq[person] += stdResidualTotal.reduceLanes(VectorOperators.ADD);
+        personSums.sumVariance[person] += varianceTotal.reduceLanes(VectorOperators.ADD);
+        personSums.sumVarianceSq[person] += varianceSqTotal.reduceLanes(VectorOperators.ADD);
+        personSums.count[person] += count;
+        ScalarRowKernel.accumulateFit(probabilities, data, person, weight, personSums, itemSums, bound);
+    }
+}
@@ -0,0 +1,322 @@
+package miroshka.rasch.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+final class XlsxStreamingReader {
+
+    ResponseMatrix read(File file) throws IOException {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            SharedStrings strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                System.out.println("Пустой файл Excel");
+                return ResponseMatrix.empty();
+            }
+
+            SheetHandler handler = new SheetHandler(strings, styles);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(handler);
+                parser.parse(new InputSource(sheet));
+            } catch (StopParsingException e) {
+                System.out.println(e.getMessage());
+                return ResponseMatrix.empty();
+            }
+            return handler.finish();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Ошибка чтения файла Excel: " + e.getMessage(), e);
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    private static final class SheetHandler extends DefaultHandler {
+        private final SharedStrings strings;
+        private final StylesTable styles;
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+        private final StringBuilder text = new StringBuilder();
+        private boolean collectingText;
+
+        private boolean headerProcessed;
+        private final BitSet headerColumns = new BitSet();
+        private final Map<Integer, String> headerNames = new HashMap<>();
+        private ResponseMatrix.Builder builder;
+        private int numCols;
+        private double[] rowValues;
+        private boolean[] rowData;
+        private boolean[] observed;
+
+        private int currentRow;
+        private int currentColumn;
+        private String cellReference;
+        private String cellType;
+        private int cellStyle;
+        private boolean cellHasValue;
+        private boolean cellHasFormula;
+        private boolean cellInline;
+
+        SheetHandler(SharedStrings strings, StylesTable styles) {
+            this.strings = strings;
+            this.styles = styles;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            switch (localName) {
+                case "row":
+                    currentRow++;
+                    currentColumn = -1;
+                    if (headerProcessed) {
+                        Arrays.fill(rowValues, -1);
+                    }
+                    break;
+                case "c":
+                    String reference = attributes.getValue("r");
+                    currentColumn = reference != null ? columnIndex(reference) : currentColumn + 1;
+                    cellReference = reference != null ? reference : columnName(currentColumn) + currentRow;
+                    cellType = attributes.getValue("t");
+                    String style = attributes.getValue("s");
+                    cellStyle = style != null ? parseIndex(style, "стиля") : -1;
+                    cellHasValue = false;
+                    cellHasFormula = false;
+                    cellInline = false;
+                    text.setLength(0);
+                    break;
+                case "v":
+                    cellHasValue = true;
+                    collectingText = true;
+                    break;
+                case "f":
+                    cellHasFormula = true;
+                    break;
+                case "is":
+                    cellInline = true;
+                    break;
+                case "t":
+                    collectingText = cellInline;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collectingText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    collectingText = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void endCell() throws SAXException {
+            if (!headerProcessed) {
+                if (cellHasValue || cellHasFormula || cellInline) {
+                    headerColumns.set(currentColumn);
+                    headerNames.put(currentColumn, extractText());
+                }
+                return;
+            }
+            int index = currentColumn - 1;
+            if (index >= 0 && index < numCols) {
+                rowValues[index] = extractNumericValue();
+            }
+        }
+
+        private void endRow() throws SAXException {
+            if (!headerProcessed) {
+                headerProcessed = true;
+                numCols = headerColumns.nextClearBit(1) - 1;
+                if (numCols <= 0) {
+                    throw new StopParsingException("Нет столбцов с данными");
+                }
+                System.out.println("Найдено " + numCols + " столбцов данных");
+                String[] names = new String[numCols];
+                for (int j = 0; j < numCols; j++) {
+                    names[j] = headerNames.get(j + 1);
+                }
+                builder = ResponseMatrix.builder(numCols).withItemNames(names);
+                rowValues = new double[numCols];
+                rowData = new boolean[numCols];
+                observed = new boolean[numCols];
+                return;
+            }
+
+            boolean hasData = false;
+            for (int j = 0; j < numCols; j++) {
+                double value = rowValues[j];
+                observed[j] = value != -1;
+                rowData[j] = observed[j] && value > 0;
+                hasData |= observed[j];
+            }
+            if (hasData) {
+                builder.addRow(rowData, observed);
+            }
+        }
+
+        private double extractNumericValue() throws SAXException {
+            String value = text.toString();
+            if (cellHasFormula) {
+                return extractFormulaValue(value);
+            }
+            if (cellType == null || cellType.equals("n")) {
+                if (!cellHasValue) {
+                    return -1;
+                }
+                double number = parseNumber(value);
+                return isDateFormatted(number) ? 1.0 : number;
+            }
+            switch (cellType) {
+                case "s":
+                    if (!cellHasValue) return -1;
+                    return DataReader.parseStringValue(sharedString(value));
+                case "inlineStr":
+                case "str":
+                    return cellInline || cellHasValue ? DataReader.parseStringValue(value) : -1;
+                case "b":
+                    return cellHasValue ? ("1".equals(value.trim()) ? 1.0 : 0.0) : -1;
+                default:
+                    return -1;
+            }
+        }
+
+        private String extractText() throws SAXException {
+            String value = text.toString();
+            if ("s".equals(cellType) && cellHasValue && !cellHasFormula) {
+                value = sharedString(value);
+            }
+            return value.trim();
+        }
+
+        private String sharedString(String value) throws SAXException {
+            int index = parseIndex(value, "общей строки");
+            if (index < 0 || index >= strings.getUniqueCount()) {
+                throw new SAXException("Индекс общей строки " + index + " вне диапазона в ячейке " + cellReference);
+            }
+            return strings.getItemAt(index).getString();
+        }
+
+        private int parseIndex(String value, String kind) throws SAXException {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new SAXException("Некорректный индекс " + kind + " \"" + value.trim() + "\" в ячейке "
+                    + cellReference, e);
+            }
+        }
+
+        private double extractFormulaValue(String value) {
+            if (cellType == null || cellType.equals("n")) {
+                double number = cellHasValue ? parseNumber(value) : 0.0;
+                return Double.isNaN(number) || Double.isInfinite(number) ? 0.0 : number;
+            }
+            if (cellType.equals("str")) {
+                return value.equalsIgnoreCase("true") ? 1.0 : 0.0;
+            }
+            return 0.0;
+        }
+
+        private boolean isDateFormatted(double number) {
+            if (cellStyle < 0 || styles == null || !DateUtil.isValidExcelDate(number)) {
+                return false;
+            }
+            return dateStyles.computeIfAbsent(cellStyle, index -> {
+                XSSFCellStyle style = styles.getStyleAt(index);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+
+        private static double parseNumber(String value) {
+            try {
+                return Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private static int columnIndex(String reference) {
+            int column = 0;
+            for (int k = 0; k < reference.length(); k++) {
+                char c = reference.charAt(k);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+
+        private static String columnName(int column) {
+            StringBuilder name = new StringBuilder();
+            for (int c = column + 1; c > 0; c = (c - 1) / 26) {
+                name.insert(0, (char) ('A' + (c - 1) % 26));
+            }
+            return name.toString();
+        }
+
+        ResponseMatrix finish() {
+            if (builder == null || builder.getNumPersons() == 0) {
+                System.out.println("Не удалось прочитать данные из Excel");
+                return ResponseMatrix.empty();
+            }
+            System.out.println("Прочитано строк данных: " + builder.getNumPersons());
+            return builder.build();
+        }
+    }
+
+    private static final class StopParsingException extends SAXException {
+        StopParsingException(String message) {
+            super(message);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Locale;
 import java.util.Optional;
 
 import miroshka.rasch.logic.RaschModel;
+import miroshka.rasch.logic.ScoreTable;
 
 public final class CsvExporter {
     
@@ -31,6 +32,12 @@ public final class CsvExporter {
             writer.println();
             
             exportItemSection(writer, result);
+            
+            if (result.getScoreTable() != null) {
+                writer.println();
+                
+                exportScoreTableSection(writer, result.getScoreTable());
+            }
         }
     }
     
@@ -85,4 +92,20 @@ public final class CsvExporter {
             writer.println(String.join(SEPARATOR, rowData));
         }
     }
+    
+    private static void exportScoreTableSection(PrintWriter writer, ScoreTable table) {
+        writer.println("ТАБЛИЦА ПЕРЕВОДА БАЛЛОВ");
+        
+        String[] headers = {"Сырой балл", "Способности (логиты, " + table.getEstimator() + ")", "Стандартная ошибка"};
+        writer.println(String.join(SEPARATOR, headers));
+        
+        for (int score = 0; score <= table.getMaxScore(); score++) {
+            String[] rowData = {
+                String.valueOf(score),
+                DECIMAL_FORMAT.format(table.getAbility(score)),
+                DECIMAL_FORMAT.format(table.getStandardError(score))
+            };
+            writer.println(String.join(SEPARATOR, rowData));
+        }
+    }
 }
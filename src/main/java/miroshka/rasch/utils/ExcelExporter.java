@@ -17,6 +17,7 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import miroshka.rasch.logic.RaschModel;
+import miroshka.rasch.logic.ScoreTable;
 
 public final class ExcelExporter {
     
@@ -40,6 +41,10 @@ public final class ExcelExporter {
             
             exportItemSheet(workbook, result, headerStyle, dataStyle);
             
+            if (result.getScoreTable() != null) {
+                exportScoreTableSheet(workbook, result.getScoreTable(), headerStyle, dataStyle);
+            }
+            
             saveWorkbook(workbook, outputFile);
         }
     }
@@ -133,6 +138,32 @@ public final class ExcelExporter {
         }
     }
     
+    private static void exportScoreTableSheet(Workbook workbook, ScoreTable table,
+                                            CellStyle headerStyle, CellStyle dataStyle) {
+        Sheet sheet = workbook.createSheet("Перевод баллов");
+        
+        Row headerRow = sheet.createRow(0);
+        String[] headers = {"Сырой балл", "Способности (логиты, " + table.getEstimator() + ")", "Стандартная ошибка"};
+        
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        
+        for (int score = 0; score <= table.getMaxScore(); score++) {
+            Row row = sheet.createRow(score + 1);
+            
+            createCell(row, 0, String.valueOf(score), dataStyle);
+            createCell(row, 1, DECIMAL_FORMAT.format(table.getAbility(score)), dataStyle);
+            createCell(row, 2, DECIMAL_FORMAT.format(table.getStandardError(score)), dataStyle);
+        }
+        
+        for (int i = 0; i < headers.length; i++) {
+            sheet.autoSizeColumn(i);
+        }
+    }
+    
     private static void createCell(Row row, int column, String value, CellStyle style) {
         Cell cell = row.createCell(column);
         cell.setCellValue(value);
@@ -15,6 +15,7 @@ import org.apache.poi.xwpf.usermodel.XWPFTable;
 import org.apache.poi.xwpf.usermodel.XWPFTableRow;
 
 import miroshka.rasch.logic.RaschModel;
+import miroshka.rasch.logic.ScoreTable;
 
 public final class WordExporter {
     
@@ -64,6 +65,12 @@ public final class WordExporter {
             
             exportItemSection(document, result);
             
+            if (result.getScoreTable() != null) {
+                document.createParagraph();
+                
+                exportScoreTableSection(document, result.getScoreTable());
+            }
+            
             saveDocument(document, outputFile);
         }
     }
@@ -146,6 +153,28 @@ public final class WordExporter {
         }
     }
     
+    private static void exportScoreTableSection(XWPFDocument document, ScoreTable scoreTable) {
+        XWPFParagraph subtitle = document.createParagraph();
+        XWPFRun subtitleRun = subtitle.createRun();
+        subtitleRun.setText("Таблица перевода баллов");
+        subtitleRun.setBold(true);
+        subtitleRun.setFontSize(14);
+        
+        XWPFTable table = document.createTable();
+        
+        XWPFTableRow headerRow = table.getRow(0);
+        headerRow.getCell(0).setText("Сырой балл");
+        headerRow.addNewTableCell().setText("Способности (логиты, " + scoreTable.getEstimator() + ")");
+        headerRow.addNewTableCell().setText("Стандартная ошибка");
+        
+        for (int score = 0; score <= scoreTable.getMaxScore(); score++) {
+            XWPFTableRow row = table.createRow();
+            row.getCell(0).setText(String.valueOf(score));
+            row.getCell(1).setText(DECIMAL_FORMAT.format(scoreTable.getAbility(score)));
+            row.getCell(2).setText(DECIMAL_FORMAT.format(scoreTable.getStandardError(score)));
+        }
+    }
+    
     private static void saveDocument(XWPFDocument document, File outputFile) throws IOException {
         try (FileOutputStream out = new FileOutputStream(outputFile)) {
             document.write(out);
@@ -12,6 +12,8 @@ module RaschModelCalculator {
     requires org.apache.xmlbeans;
     requires org.apache.logging.log4j;
     requires java.desktop;
+    requires java.xml;
+    requires static jdk.incubator.vector;
 
     opens miroshka.rasch.controller to javafx.fxml;
     opens miroshka.rasch.model to javafx.fxml, javafx.base;
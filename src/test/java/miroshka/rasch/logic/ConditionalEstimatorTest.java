@@ -0,0 +1,55 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ConditionalEstimatorTest {
+
+    @Test
+    void recoversKnownDifficulties() {
+        double[] difficulties = {-2.0, -1.2, -0.6, -0.2, 0.0, 0.3, 0.7, 1.1, 1.5, 2.4};
+        ResponseMatrix data = SyntheticDataGenerator.builder(20000, difficulties.length).withSeed(13)
+            .withItemDifficulties(difficulties).build().generateMatrix();
+
+        RaschModel.RaschResult result = new RaschModel(EstimationSettings.builder()
+            .withMethod(EstimationSettings.Method.CML).build()).calculate(data);
+
+        assertEquals(RaschModel.Convergence.Status.CONVERGED, result.getConvergence().getStatus());
+        double mean = 0;
+        for (double difficulty : difficulties) {
+            mean += difficulty / difficulties.length;
+        }
+        for (int i = 0; i < difficulties.length; i++) {
+            assertEquals(difficulties[i] - mean, result.getItemDifficulties()[i], 0.05, "item " + i);
+        }
+    }
+
+    @Test
+    void reportsFailedLineSearchWithoutClaimingConvergence() {
+        int failed = 0;
+        for (int seed = 1; seed <= 3; seed++) {
+            ResponseMatrix data = SyntheticDataGenerator.builder(500, 10).withSeed(seed).build().generateMatrix();
+            EstimationSettings unreachable = EstimationSettings.builder()
+                .withMethod(EstimationSettings.Method.CML)
+                .withParameterTolerance(1e-15)
+                .withResidualTolerance(1e-15)
+                .withMaxIterations(500)
+                .build();
+
+            RaschModel.Convergence convergence = new RaschModel(unreachable).calculate(data).getConvergence();
+
+            assertFalse(convergence.isConverged(), convergence.toString());
+            if (convergence.getStatus() == RaschModel.Convergence.Status.LINE_SEARCH_FAILED) {
+                failed++;
+                assertTrue(convergence.getIterations() < 500, convergence.toString());
+                assertTrue(Double.isFinite(convergence.getMaxParameterChange()), convergence.toString());
+            } else {
+                assertEquals(RaschModel.Convergence.Status.ITERATION_LIMIT, convergence.getStatus());
+            }
+        }
+        assertTrue(failed > 0, "Line search never failed at an unreachable tolerance");
+    }
+}
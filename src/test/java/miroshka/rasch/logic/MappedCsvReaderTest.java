@@ -0,0 +1,184 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void matchesBufferedReaderParserOnMixedTokens() throws IOException {
+        File file = write("mixed.csv", StandardCharsets.US_ASCII,
+            "ID;A;\"B\";C;D;E;;\n"
+                + "1;1;0;\"1\"; 2 ;-1\n"
+                + "2;true;YES;+;no;0.0\r\n"
+                + "3;;;;;\n"
+                + "4;1e3;NaN;Infinity;-Infinity;0x1p3\r"
+                + "\n"
+                + "5;.5;-0;+1;00;1.\n"
+                + "6\n"
+                + "7;1;1;1;1;1;1;1;1\n"
+                + "8;0;1\n"
+                + "9;abc;\" 1 \";-;x;+0.5");
+
+        ResponseMatrix expected = readBuffered(file);
+        ResponseMatrix actual = new MappedCsvReader(1).read(file);
+
+        assertSameMatrix(expected, actual);
+        assertEquals(5, actual.getNumItems());
+        assertEquals(7, actual.getNumPersons());
+    }
+
+    @Test
+    void dropsTrailingEmptyHeaderFieldsOnly() throws IOException {
+        File file = write("header.csv", StandardCharsets.US_ASCII,
+            "ID;A;;C;;\n"
+                + "1;1;0;1\n");
+
+        ResponseMatrix actual = new MappedCsvReader(1).read(file);
+
+        assertSameMatrix(readBuffered(file), actual);
+        assertArrayEquals(new String[] {"A", "", "C"}, actual.getItemNames());
+    }
+
+    @Test
+    void returnsEmptyMatrixForHeaderWithoutItems() throws IOException {
+        File file = write("empty.csv", StandardCharsets.US_ASCII, "ID;;\n1;1;1\n");
+
+        assertTrue(new MappedCsvReader(1).read(file).isEmpty());
+        assertTrue(readBuffered(file).isEmpty());
+    }
+
+    @Test
+    void treatsBlanksAsMissingAndMinusOneAsIncorrect() throws IOException {
+        File file = write("blanks.csv", StandardCharsets.US_ASCII,
+            "ID;A;B;C\n"
+                + "1;-1; ;1\n"
+                + "2;\"\";0;\n");
+
+        ResponseMatrix actual = new MappedCsvReader(1).read(file);
+
+        assertSameMatrix(readBuffered(file), actual);
+        assertTrue(actual.isObserved(0, 0));
+        assertFalse(actual.isCorrect(0, 0));
+        assertFalse(actual.isObserved(0, 1));
+        assertFalse(actual.isObserved(1, 0));
+        assertFalse(actual.isObserved(1, 2));
+    }
+
+    @Test
+    void readsCrlfLikeLf() throws IOException {
+        String rows = "ID;A;B\n1;1;0\n2;0;1\n\n3;1;1\n";
+        File lf = write("lf.csv", StandardCharsets.US_ASCII, rows);
+        File crlf = write("crlf.csv", StandardCharsets.US_ASCII, rows.replace("\n", "\r\n"));
+
+        ResponseMatrix expected = new MappedCsvReader(1).read(lf);
+
+        assertSameMatrix(expected, new MappedCsvReader(1).read(crlf));
+        assertSameMatrix(readBuffered(crlf), new MappedCsvReader(1).read(crlf));
+        assertEquals(3, expected.getNumPersons());
+    }
+
+    @Test
+    void recognizesYesInRussianInUtf8AndWindows1251() throws IOException {
+        String content = "ID;A;B;C;D;E\n1;да;Да;ДА;нет;\"да\"\n";
+        for (Charset charset : new Charset[] {StandardCharsets.UTF_8, Charset.forName("windows-1251")}) {
+            File file = write("yes-" + charset.name() + ".csv", charset, content);
+
+            ResponseMatrix actual = new MappedCsvReader(1).read(file);
+
+            assertEquals(1, actual.getNumPersons(), charset.name());
+            assertTrue(actual.isCorrect(0, 0), charset.name());
+            assertTrue(actual.isCorrect(0, 1), charset.name());
+            assertTrue(actual.isCorrect(0, 2), charset.name());
+            assertFalse(actual.isCorrect(0, 3), charset.name());
+            assertTrue(actual.isObserved(0, 3), charset.name());
+            assertTrue(actual.isCorrect(0, 4), charset.name());
+        }
+    }
+
+    @Test
+    void classifiesTokensLikeParseStringValue() {
+        String[] tokens = {"0", "1", "7", "+", "-", "-1", "0.0", "0.001", "-0.5", "+2", "1.", ".0", "007",
+            "1e3", "1E-9", "-1e3", "NaN", "Infinity", "-Infinity", "0x1p3", "true", "TRUE", "Yes", "no",
+            "false", "abc", "1,5", "..", "+-1"};
+        for (String token : tokens) {
+            byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+            boolean expected = token.equalsIgnoreCase("true") || token.equalsIgnoreCase("yes")
+                || DataReader.parseStringValue(token) > 0;
+            assertEquals(expected, MappedCsvReader.isCorrect(bytes, bytes.length), token);
+        }
+    }
+
+    @Test
+    void parallelChunksMatchSerialParse() throws IOException {
+        String[] tokens = {"1", "0", "", "\"1\"", "\"0\"", " 1 ", "-1", "да", "true", "0.5"};
+        String[] lineBreaks = {"\n", "\r\n", "\r"};
+        Random random = new Random(9);
+        int numItems = 30;
+        StringBuilder content = new StringBuilder("ID");
+        for (int i = 0; i < numItems; i++) {
+            content.append(';').append("\"Q").append(i + 1).append('"');
+        }
+        content.append("\r\n");
+        for (int p = 0; p < 3000; p++) {
+            content.append('"').append(p + 1).append('"');
+            for (int i = 0; i < numItems; i++) {
+                content.append(';').append(tokens[random.nextInt(tokens.length)]);
+            }
+            content.append(lineBreaks[random.nextInt(lineBreaks.length)]);
+            if (random.nextInt(50) == 0) {
+                content.append("\r\n");
+            }
+        }
+        File file = write("chunks.csv", StandardCharsets.UTF_8, content.toString());
+
+        ResponseMatrix expected = new MappedCsvReader(1).read(file);
+        assertEquals(3000, expected.getNumPersons());
+        for (long windowSize : new long[] {1L << 30, 4096, 1531}) {
+            for (int minChunkSize : new int[] {64, 997}) {
+                for (int parallelism : new int[] {2, 4}) {
+                    assertSameMatrix(expected, new MappedCsvReader(windowSize, minChunkSize, parallelism).read(file));
+                }
+            }
+        }
+    }
+
+    private File write(String name, Charset charset, String content) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.write(path, content.getBytes(charset));
+        return path.toFile();
+    }
+
+    private static ResponseMatrix readBuffered(File file) throws IOException {
+        return new DataReader(ReaderSettings.builder().withMappedCsv(false).build()).readData(file);
+    }
+
+    static void assertSameMatrix(ResponseMatrix expected, ResponseMatrix actual) {
+        assertEquals(expected.getNumPersons(), actual.getNumPersons(), "persons");
+        assertEquals(expected.getNumItems(), actual.getNumItems(), "items");
+        assertEquals(expected.hasMissing(), actual.hasMissing(), "missing");
+        assertArrayEquals(expected.getItemNames(), actual.getItemNames());
+        for (int p = 0; p < expected.getNumPersons(); p++) {
+            for (int i = 0; i < expected.getNumItems(); i++) {
+                assertEquals(expected.isObserved(p, i), actual.isObserved(p, i), "observed " + p + "," + i);
+                assertEquals(expected.get(p, i), actual.get(p, i), "response " + p + "," + i);
+            }
+        }
+    }
+}
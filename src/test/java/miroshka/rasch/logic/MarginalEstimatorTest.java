@@ -0,0 +1,107 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MarginalEstimatorTest {
+
+    @Test
+    void gaussHermiteMatchesClosedFormThreePointRule() {
+        double[] nodes = new double[3];
+        double[] weights = new double[3];
+
+        MarginalEstimator.gaussHermite(nodes, weights);
+
+        double root = Math.sqrt(1.5);
+        double sqrtPi = Math.sqrt(Math.PI);
+        for (int q = 0; q < 3; q++) {
+            if (Math.abs(nodes[q]) < 1e-12) {
+                assertEquals(2 * sqrtPi / 3, weights[q], 1e-12);
+            } else {
+                assertEquals(root, Math.abs(nodes[q]), 1e-12);
+                assertEquals(sqrtPi / 6, weights[q], 1e-12);
+            }
+        }
+        assertEquals(0.0, nodes[0] + nodes[1] + nodes[2], 1e-12);
+    }
+
+    @Test
+    void gaussHermiteIntegratesPolynomialsExactly() {
+        int points = 31;
+        double[] nodes = new double[points];
+        double[] weights = new double[points];
+
+        MarginalEstimator.gaussHermite(nodes, weights);
+
+        double expected = Math.sqrt(Math.PI);
+        for (int degree = 0; degree < 2 * points; degree += 2) {
+            double even = 0;
+            double odd = 0;
+            for (int q = 0; q < points; q++) {
+                even += weights[q] * Math.pow(nodes[q], degree);
+                odd += weights[q] * Math.pow(nodes[q], degree + 1);
+            }
+            assertEquals(1.0, even / expected, 1e-9, "degree " + degree);
+            assertEquals(0.0, odd / expected, 1e-9, "degree " + (degree + 1));
+            expected *= (degree + 1) / 2.0;
+        }
+    }
+
+    @Test
+    void recoversPopulationAndDifficulties() {
+        double[] difficulties = {-1.8, -1.1, -0.7, -0.4, -0.1, 0.2, 0.5, 0.9, 1.3, 2.0, -0.9, 0.1, 0.6, 1.6, -1.4};
+        double mean = 0.6;
+        double deviation = 1.3;
+        ResponseMatrix data = SyntheticDataGenerator.builder(30000, difficulties.length).withSeed(14)
+            .withAbilityDistribution(SyntheticDataGenerator.Distribution.normal(mean, deviation))
+            .withItemDifficulties(difficulties)
+            .build()
+            .generateMatrix();
+
+        RaschModel.RaschResult result = new RaschModel(EstimationSettings.builder()
+            .withMethod(EstimationSettings.Method.MML).build()).calculate(data);
+
+        RaschModel.Convergence convergence = result.getConvergence();
+        assertEquals(RaschModel.Convergence.Status.CONVERGED, convergence.getStatus());
+        assertTrue(convergence.getIterations() < 100, convergence.toString());
+        double[] history = convergence.getResidualHistory();
+        assertTrue(history[history.length - 1] < history[0], convergence.toString());
+
+        double center = 0;
+        for (double difficulty : difficulties) {
+            center += difficulty / difficulties.length;
+        }
+        for (int i = 0; i < difficulties.length; i++) {
+            assertEquals(difficulties[i] - center, result.getItemDifficulties()[i], 0.05, "item " + i);
+        }
+        assertEquals(mean - center, result.getPopulation().getMean(), 0.05);
+        assertEquals(deviation * deviation, result.getPopulation().getVariance(), 0.1);
+    }
+
+    @Test
+    void scoreTableHoldsTheEapPersonMeasures() {
+        ResponseMatrix data = SyntheticDataGenerator.builder(5000, 12).withSeed(15).build().generateMatrix();
+
+        RaschModel.RaschResult result = new RaschModel(EstimationSettings.builder()
+            .withMethod(EstimationSettings.Method.MML).build()).calculate(data);
+
+        ScoreTable table = result.getScoreTable();
+        assertSame(PersonScorer.Estimator.EAP, table.getEstimator());
+        assertEquals(12, table.getMaxScore());
+        int[] scores = data.rawScores();
+        for (int p = 0; p < scores.length; p++) {
+            assertEquals(table.getAbility(scores[p]), result.getPersonAbilities()[p], 0.0, "person " + p);
+        }
+        double priorDeviation = Math.sqrt(result.getPopulation().getVariance());
+        for (int score = 0; score <= table.getMaxScore(); score++) {
+            if (score > 0) {
+                assertTrue(table.getAbility(score) > table.getAbility(score - 1), "score " + score);
+            }
+            assertTrue(table.getStandardError(score) > 0, "score " + score);
+            assertTrue(table.getStandardError(score) < priorDeviation, "score " + score);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class NewtonSolverTest {
+
+    @Test
+    void matchesDampedJmleOnCompleteData() {
+        assertMatchesDamped(SyntheticDataGenerator.builder(2000, 20).withSeed(1).build().generateMatrix());
+    }
+
+    @Test
+    void matchesDampedJmleOnIncompleteData() {
+        assertMatchesDamped(SyntheticDataGenerator.builder(2000, 20).withSeed(2).withMissingRate(0.3).build()
+            .generateMatrix());
+    }
+
+    @Test
+    void mergesPersonsOnlyWithEqualScoreAndStart() {
+        ResponseMatrix data = SyntheticDataGenerator.builder(1500, 15).withSeed(3).build().generateMatrix();
+        RaschModel.RaschResult cold = newton(data, EstimationSettings.PersonEstimation.INDIVIDUAL);
+        RaschModel.RaschResult grouped = newton(data, EstimationSettings.PersonEstimation.SCORE_GROUPS);
+
+        double[] startAbilities = new double[data.getNumPersons()];
+        Random random = new Random(3);
+        for (int p = 0; p < startAbilities.length; p++) {
+            startAbilities[p] = random.nextInt(3) - 1.0;
+        }
+        RaschModel.RaschResult warm = new RaschModel(newtonSettings(EstimationSettings.PersonEstimation.INDIVIDUAL)
+            .withPatternDeduplication(false).build())
+            .calculate(data, new double[data.getNumItems()], startAbilities);
+
+        assertTrue(cold.getConvergence().isConverged());
+        assertTrue(warm.getConvergence().isConverged());
+        assertArrayEquals(cold.getItemDifficulties(), grouped.getItemDifficulties(), 1e-6);
+        assertArrayEquals(cold.getItemDifficulties(), warm.getItemDifficulties(), 1e-6);
+        assertArrayEquals(cold.getPersonAbilities(), grouped.getPersonAbilities(), 1e-6);
+        assertArrayEquals(cold.getPersonAbilities(), warm.getPersonAbilities(), 1e-6);
+    }
+
+    @Test
+    void fallsBackToDampedIterationsAboveItemLimit() {
+        assertEquals(NewtonSolver.MAX_ITEMS, NewtonSolver.itemLimit(null));
+        ResponseMatrix sparse = SyntheticDataGenerator.builder(50, 10).withSeed(4).withMissingRate(0.7).build()
+            .generateMatrix();
+        assertTrue(ObservedCells.of(sparse, null).isSparse());
+        assertEquals(NewtonSolver.MAX_SPARSE_ITEMS, NewtonSolver.itemLimit(ObservedCells.of(sparse, null)));
+
+        ResponseMatrix wide = SyntheticDataGenerator.builder(300, NewtonSolver.MAX_ITEMS + 1).withSeed(4).build()
+            .generateMatrix();
+        assertSameResult(solve(wide, EstimationSettings.Solver.DAMPED), solve(wide, EstimationSettings.Solver.NEWTON));
+
+        ResponseMatrix wideSparse = SyntheticDataGenerator.builder(300, NewtonSolver.MAX_SPARSE_ITEMS + 1).withSeed(4)
+            .withMissingRate(0.7).build().generateMatrix();
+        assertSameResult(solve(wideSparse, EstimationSettings.Solver.DAMPED),
+            solve(wideSparse, EstimationSettings.Solver.NEWTON));
+    }
+
+    @Test
+    void reportsFailedLineSearchWithoutClaimingConvergence() {
+        int failed = 0;
+        for (int seed = 1; seed <= 3; seed++) {
+            ResponseMatrix data = SyntheticDataGenerator.builder(500, 10).withSeed(seed).build().generateMatrix();
+            RaschModel.RaschResult first = solve(data, EstimationSettings.Solver.NEWTON);
+            EstimationSettings unreachable = EstimationSettings.builder()
+                .withSolver(EstimationSettings.Solver.NEWTON)
+                .withParameterTolerance(1e-15)
+                .withResidualTolerance(1e-15)
+                .withMaxIterations(500)
+                .build();
+
+            RaschModel.Convergence convergence = new RaschModel(unreachable).calculate(data, first).getConvergence();
+
+            assertFalse(convergence.isConverged(), convergence.toString());
+            if (convergence.getStatus() == RaschModel.Convergence.Status.LINE_SEARCH_FAILED) {
+                failed++;
+                assertTrue(convergence.getIterations() < 500, convergence.toString());
+                assertTrue(Double.isFinite(convergence.getMaxParameterChange()), convergence.toString());
+            } else {
+                assertEquals(RaschModel.Convergence.Status.ITERATION_LIMIT, convergence.getStatus());
+            }
+        }
+        assertTrue(failed > 0, "Line search never failed at an unreachable tolerance");
+    }
+
+    private static void assertMatchesDamped(ResponseMatrix data) {
+        RaschModel.RaschResult newton = solve(data, EstimationSettings.Solver.NEWTON);
+        RaschModel.RaschResult damped = new RaschModel(EstimationSettings.builder()
+            .withSolver(EstimationSettings.Solver.DAMPED)
+            .withParameterTolerance(1e-7)
+            .withResidualTolerance(1e-6)
+            .withMaxIterations(5000)
+            .build()).calculate(data);
+
+        assertTrue(newton.getConvergence().isConverged(), newton.getConvergence().toString());
+        assertTrue(damped.getConvergence().isConverged(), damped.getConvergence().toString());
+        assertArrayEquals(damped.getItemDifficulties(), newton.getItemDifficulties(), 1e-4);
+        assertArrayEquals(damped.getPersonAbilities(), newton.getPersonAbilities(), 1e-4);
+        if (!data.hasMissing()) {
+            ScoreTable table = damped.getScoreTable();
+            int[] scores = data.rawScores();
+            for (int p = 0; p < scores.length; p++) {
+                assertEquals(table.getAbility(scores[p]), damped.getPersonAbilities()[p], 1e-4, "person " + p);
+            }
+        }
+    }
+
+    private static void assertSameResult(RaschModel.RaschResult expected, RaschModel.RaschResult actual) {
+        assertArrayEquals(expected.getItemDifficulties(), actual.getItemDifficulties());
+        assertArrayEquals(expected.getPersonAbilities(), actual.getPersonAbilities());
+        assertEquals(expected.getConvergence().getIterations(), actual.getConvergence().getIterations());
+    }
+
+    private static RaschModel.RaschResult solve(ResponseMatrix data, EstimationSettings.Solver solver) {
+        return new RaschModel(EstimationSettings.builder().withSolver(solver).build()).calculate(data);
+    }
+
+    private static RaschModel.RaschResult newton(ResponseMatrix data, EstimationSettings.PersonEstimation persons) {
+        return new RaschModel(newtonSettings(persons).build()).calculate(data);
+    }
+
+    private static EstimationSettings.Builder newtonSettings(EstimationSettings.PersonEstimation persons) {
+        return EstimationSettings.builder()
+            .withSolver(EstimationSettings.Solver.NEWTON)
+            .withPersonEstimation(persons)
+            .withParameterTolerance(1e-9);
+    }
+}
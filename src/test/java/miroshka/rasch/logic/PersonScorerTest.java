@@ -0,0 +1,36 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PersonScorerTest {
+
+    @Test
+    void infitZstdIsFiniteAndCenteredForModelFittingData() {
+        int numItems = 40;
+        double[] difficulties = new double[numItems];
+        for (int i = 0; i < numItems; i++) {
+            difficulties[i] = -2.0 + 4.0 * i / (numItems - 1);
+        }
+        PersonScorer scorer = new PersonScorer(difficulties);
+        Random random = new Random(42);
+
+        int numPersons = 2000;
+        double sum = 0;
+        for (int p = 0; p < numPersons; p++) {
+            double ability = random.nextGaussian();
+            boolean[] responses = new boolean[numItems];
+            for (int i = 0; i < numItems; i++) {
+                responses[i] = random.nextDouble() < ProbabilityKernel.probability(ability, difficulties[i]);
+            }
+            double infitZSTD = scorer.score(responses).getInfitZSTD();
+            assertTrue(Double.isFinite(infitZSTD), "Infit ZSTD is not finite for person " + p);
+            sum += infitZSTD;
+        }
+        assertEquals(0.0, sum / numPersons, 0.2);
+    }
+}
@@ -0,0 +1,40 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class RaschModelTest {
+
+    @Test
+    void deferredFitIgnoresChangesToReturnedEstimates() {
+        ResponseMatrix data = SyntheticDataGenerator.builder(800, 12).withSeed(25).withMissingRate(0.1).build()
+            .generateMatrix();
+        for (boolean deduplicate : new boolean[] {false, true}) {
+            RaschModel.RaschResult eager = calculate(data, EstimationSettings.FitComputation.EAGER, deduplicate);
+            RaschModel.RaschResult lazy = calculate(data, EstimationSettings.FitComputation.LAZY, deduplicate);
+            assertFalse(lazy.isFitComputed());
+
+            Arrays.fill(lazy.getPersonAbilities(), 5.0);
+            Arrays.fill(lazy.getItemDifficulties(), -5.0);
+
+            assertArrayEquals(eager.getPersonInfitMNSQ(), lazy.getPersonInfitMNSQ(), 0.0);
+            assertArrayEquals(eager.getPersonOutfitZSTD(), lazy.getPersonOutfitZSTD(), 0.0);
+            assertArrayEquals(eager.getItemInfitMNSQ(), lazy.getItemInfitMNSQ(), 0.0);
+            assertArrayEquals(eager.getItemOutfitZSTD(), lazy.getItemOutfitZSTD(), 0.0);
+            assertTrue(lazy.isFitComputed());
+        }
+    }
+
+    private static RaschModel.RaschResult calculate(ResponseMatrix data, EstimationSettings.FitComputation fit,
+                                                    boolean deduplicate) {
+        return new RaschModel(EstimationSettings.builder()
+            .withFitComputation(fit)
+            .withPatternDeduplication(deduplicate)
+            .build()).calculate(data);
+    }
+}
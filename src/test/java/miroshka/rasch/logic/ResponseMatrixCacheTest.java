@@ -0,0 +1,184 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResponseMatrixCacheTest {
+    private static final int SOURCE_SIZE = 256 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadsStoredMatrixWithItsExactPrecomputedSize() throws IOException {
+        ResponseMatrix matrix = matrix(1, 0.2);
+        File source = source("data.csv", 1);
+        ResponseMatrixCache cache = new ResponseMatrixCache(cacheDirectory(), Long.MAX_VALUE);
+
+        cache.store(source, matrix);
+
+        List<Path> files = cacheFiles();
+        assertEquals(1, files.size());
+        assertEquals(ResponseMatrixCache.sizeOf(matrix), Files.size(files.get(0)));
+        MappedCsvReaderTest.assertSameMatrix(matrix, cache.load(source));
+    }
+
+    @Test
+    void skipsMatricesAboveTheLimitWithoutWriting() throws IOException {
+        ResponseMatrix matrix = matrix(2, 0.0);
+        File source = source("large.csv", 2);
+        ResponseMatrixCache cache = new ResponseMatrixCache(cacheDirectory(), ResponseMatrixCache.sizeOf(matrix) - 1);
+
+        cache.store(source, matrix);
+
+        assertFalse(Files.exists(cacheDirectory()));
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    void invalidatesEntryWhenSourceSizeChanges() throws IOException {
+        File source = source("size.csv", 3);
+        ResponseMatrixCache cache = stored(source, matrix(3, 0.0));
+
+        try (RandomAccessFile file = new RandomAccessFile(source, "rw")) {
+            file.setLength(SOURCE_SIZE + 1);
+        }
+
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    void invalidatesEntryWhenFingerprintChangesAtTheSameSizeAndTime() throws IOException {
+        File source = source("head.csv", 4);
+        ResponseMatrixCache cache = stored(source, matrix(4, 0.0));
+        long modified = source.lastModified();
+
+        flipByte(source, 10);
+        assertTrue(source.setLastModified(modified));
+
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    void revalidatesTouchedSourceByChecksum() throws IOException {
+        File source = source("touched.csv", 5);
+        ResponseMatrix matrix = matrix(5, 0.1);
+        ResponseMatrixCache cache = stored(source, matrix);
+
+        assertTrue(source.setLastModified(source.lastModified() - TimeUnit.HOURS.toMillis(1)));
+        MappedCsvReaderTest.assertSameMatrix(matrix, cache.load(source));
+
+        flipByte(source, SOURCE_SIZE / 2);
+        assertTrue(source.setLastModified(source.lastModified() - TimeUnit.HOURS.toMillis(1)));
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesAboveTheLimit() throws IOException {
+        ResponseMatrix matrix = matrix(6, 0.0);
+        long size = ResponseMatrixCache.sizeOf(matrix);
+        ResponseMatrixCache cache = new ResponseMatrixCache(cacheDirectory(), 2 * size);
+        File first = source("first.csv", 6);
+        File second = source("second.csv", 7);
+        File third = source("third.csv", 8);
+        long now = System.currentTimeMillis();
+
+        cache.store(first, matrix);
+        cache.store(second, matrix);
+        setUsed(cacheFiles(), now - TimeUnit.MINUTES.toMillis(10));
+        assertNotNull(cache.load(first));
+        cache.store(third, matrix);
+
+        assertEquals(2, cacheFiles().size());
+        assertNull(cache.load(second));
+        assertNotNull(cache.load(first));
+        assertNotNull(cache.load(third));
+    }
+
+    @Test
+    void evictsEntriesAndTempFilesPastTheirAge() throws IOException {
+        ResponseMatrix matrix = matrix(9, 0.0);
+        ResponseMatrixCache cache = new ResponseMatrixCache(cacheDirectory(), Long.MAX_VALUE);
+        File old = source("old.csv", 9);
+        File fresh = source("fresh.csv", 10);
+        cache.store(old, matrix);
+        long now = System.currentTimeMillis();
+        setUsed(cacheFiles(), now - TimeUnit.DAYS.toMillis(31));
+        Path staleTemp = Files.createFile(cacheDirectory().resolve("matrix1.tmp"));
+        Path recentTemp = Files.createFile(cacheDirectory().resolve("matrix2.tmp"));
+        Files.setLastModifiedTime(staleTemp, FileTime.fromMillis(now - TimeUnit.DAYS.toMillis(2)));
+
+        cache.store(fresh, matrix);
+
+        assertEquals(1, cacheFiles().size());
+        assertNull(cache.load(old));
+        assertNotNull(cache.load(fresh));
+        assertFalse(Files.exists(staleTemp));
+        assertTrue(Files.exists(recentTemp));
+    }
+
+    private ResponseMatrixCache stored(File source, ResponseMatrix matrix) throws IOException {
+        ResponseMatrixCache cache = new ResponseMatrixCache(cacheDirectory(), Long.MAX_VALUE);
+        cache.store(source, matrix);
+        assertEquals(1, cacheFiles().size());
+        return cache;
+    }
+
+    private static ResponseMatrix matrix(long seed, double missingRate) {
+        return SyntheticDataGenerator.builder(500, 40).withSeed(seed).withMissingRate(missingRate).build()
+            .generateMatrix();
+    }
+
+    private File source(String name, long seed) throws IOException {
+        byte[] bytes = new byte[SOURCE_SIZE];
+        new Random(seed).nextBytes(bytes);
+        Path path = tempDir.resolve(name);
+        Files.write(path, bytes);
+        return path.toFile();
+    }
+
+    private Path cacheDirectory() {
+        return tempDir.resolve("cache");
+    }
+
+    private List<Path> cacheFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory(), "*.rmx")) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    private static void setUsed(List<Path> files, long millis) throws IOException {
+        for (Path file : files) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(millis));
+        }
+    }
+
+    private static void flipByte(File source, long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(source, "rw")) {
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RowTableTest {
+
+    @Test
+    void groupsEqualRowsWhenEveryHashCollides() {
+        int numRows = 5000;
+        int[] values = new int[numRows];
+        Random random = new Random(15);
+        for (int row = 0; row < numRows; row++) {
+            values[row] = random.nextInt(2000);
+        }
+        RowTable table = new RowTable(numRows);
+
+        int[] entryOfRow = new int[numRows];
+        for (int row = 0; row < numRows; row++) {
+            entryOfRow[row] = table.add(row % 2 == 0 ? 7 : 7 + RowTable.MAX_CAPACITY, row,
+                (first, second) -> values[first] == values[second]);
+        }
+
+        int[] representatives = table.getRepresentatives();
+        int[] counts = table.getCounts();
+        int[] expectedCounts = new int[representatives.length];
+        for (int row = 0; row < numRows; row++) {
+            int entry = entryOfRow[row];
+            assertEquals(values[representatives[entry]], values[row], "row " + row);
+            if (representatives[entry] == row) {
+                assertEquals(row, firstRowWithValue(values, values[row]), "row " + row);
+            }
+            expectedCounts[entry]++;
+        }
+        assertArrayEquals(expectedCounts, counts);
+        assertEquals(Arrays.stream(values).distinct().count(), representatives.length);
+        for (int entry = 1; entry < representatives.length; entry++) {
+            assertTrue(representatives[entry] > representatives[entry - 1], "entry " + entry);
+        }
+    }
+
+    @Test
+    void matchesPatternsAndScoreGroupsOnMissingData() {
+        ResponseMatrix data = SyntheticDataGenerator.builder(4000, 6).withSeed(15).withMissingRate(0.2).build()
+            .generateMatrix();
+        int[] scores = data.rawScores();
+
+        ResponsePatterns patterns = ResponsePatterns.fromMatrix(data);
+        ScoreGroups groups = ScoreGroups.fromMatrix(data, scores);
+
+        for (int p = 0; p < data.getNumPersons(); p++) {
+            int representative = patterns.representativeOf(patterns.patternOf(p));
+            int groupRepresentative = groups.getRepresentatives()[groups.groupOf(p)];
+            assertEquals(scores[p], groups.getScores()[groups.groupOf(p)], "person " + p);
+            assertEquals(scores[p], scores[groupRepresentative], "person " + p);
+            for (int i = 0; i < data.getNumItems(); i++) {
+                assertEquals(data.isObserved(p, i), data.isObserved(representative, i), "person " + p);
+                assertEquals(data.get(p, i), data.get(representative, i), "person " + p);
+                assertEquals(data.isObserved(p, i), data.isObserved(groupRepresentative, i), "person " + p);
+            }
+        }
+        int total = 0;
+        for (int count : patterns.getCounts()) {
+            total += count;
+        }
+        assertEquals(data.getNumPersons(), total);
+        assertEquals(patterns.size(), patterns.getPatterns().getNumPersons());
+    }
+
+    private static int firstRowWithValue(int[] values, int value) {
+        for (int row = 0; ; row++) {
+            if (values[row] == value) {
+                return row;
+            }
+        }
+    }
+}
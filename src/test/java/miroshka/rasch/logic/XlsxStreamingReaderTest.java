@@ -0,0 +1,107 @@
+package miroshka.rasch.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class XlsxStreamingReaderTest {
+    private static final String SHEET = "xl/worksheets/sheet1.xml";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsSharedStringCells() throws IOException {
+        ResponseMatrix matrix = new XlsxStreamingReader().read(workbook());
+
+        assertEquals(2, matrix.getNumItems());
+        assertEquals(2, matrix.getNumPersons());
+        assertEquals("Q1", matrix.getItemNames()[0]);
+        assertTrue(matrix.isCorrect(0, 0));
+        assertFalse(matrix.isCorrect(1, 0));
+        assertTrue(matrix.isCorrect(1, 1));
+    }
+
+    @Test
+    void reportsMalformedSharedStringIndexWithCellReference() throws IOException {
+        File file = corrupt(workbook(), "B2", "x");
+
+        IOException error = assertThrows(IOException.class, () -> new XlsxStreamingReader().read(file));
+
+        assertTrue(error.getMessage().contains("B2"), error.getMessage());
+    }
+
+    @Test
+    void reportsSharedStringIndexOutOfRangeWithCellReference() throws IOException {
+        File data = corrupt(workbook(), "B3", "99");
+        File header = corrupt(workbook(), "C1", "-1");
+
+        IOException dataError = assertThrows(IOException.class, () -> new XlsxStreamingReader().read(data));
+        IOException headerError = assertThrows(IOException.class, () -> new XlsxStreamingReader().read(header));
+
+        assertTrue(dataError.getMessage().contains("B3"), dataError.getMessage());
+        assertTrue(headerError.getMessage().contains("C1"), headerError.getMessage());
+    }
+
+    private File workbook() throws IOException {
+        Path path = Files.createTempFile(tempDir, "answers", ".xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(path)) {
+            XSSFSheet sheet = workbook.createSheet();
+            XSSFRow header = sheet.createRow(0);
+            header.createCell(0).setCellValue("ID");
+            header.createCell(1).setCellValue("Q1");
+            header.createCell(2).setCellValue("Q2");
+            XSSFRow first = sheet.createRow(1);
+            first.createCell(0).setCellValue(1);
+            first.createCell(1).setCellValue("да");
+            first.createCell(2).setCellValue(0);
+            XSSFRow second = sheet.createRow(2);
+            second.createCell(0).setCellValue(2);
+            second.createCell(1).setCellValue("нет");
+            second.createCell(2).setCellValue(1);
+            workbook.write(out);
+        }
+        return path.toFile();
+    }
+
+    private File corrupt(File source, String cell, String index) throws IOException {
+        Path target = Files.createTempFile(tempDir, "corrupt", ".xlsx");
+        try (ZipFile zip = new ZipFile(source);
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(target))) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                byte[] bytes = zip.getInputStream(entry).readAllBytes();
+                if (entry.getName().equals(SHEET)) {
+                    String xml = new String(bytes, StandardCharsets.UTF_8);
+                    String changed = xml.replaceFirst("(<c r=\"" + cell + "\"[^>]*t=\"s\"[^>]*><v>)\\d+(</v>)",
+                        "$1" + index + "$2");
+                    assertFalse(changed.equals(xml), "cell " + cell);
+                    bytes = changed.getBytes(StandardCharsets.UTF_8);
+                }
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                out.write(bytes);
+                out.closeEntry();
+            }
+        }
+        return target.toFile();
+    }
+}